@@ -1,10 +1,17 @@
 package id.rnggagib;
 
+import id.rnggagib.api.ProactiveChunkLoaderAPI;
 import id.rnggagib.commands.PCLCommand;
+import id.rnggagib.listeners.ChunkStateListener;
 import id.rnggagib.listeners.PlayerMoveListener;
 import id.rnggagib.listeners.PlayerQuitListener;
+import id.rnggagib.listeners.PlayerTeleportListener;
 import id.rnggagib.logic.ChunkLoadManager;
+import id.rnggagib.logic.ChunkLoaderService;
+import id.rnggagib.metrics.MetricsExporter;
+import id.rnggagib.platform.BukkitPlatform;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
 /**
@@ -14,16 +21,19 @@ import org.bukkit.plugin.java.JavaPlugin;
  */
 public class Plugin extends JavaPlugin {
     private ChunkLoadManager chunkLoadManager;
+    private MetricsExporter metricsExporter;
       @Override
     public void onEnable() {
         // Save default configuration
         saveDefaultConfig();
         
         // Initialize chunk load manager
-        chunkLoadManager = new ChunkLoadManager(this);
+        chunkLoadManager = new ChunkLoadManager(new BukkitPlatform(this));
           // Register event listeners
         getServer().getPluginManager().registerEvents(new PlayerMoveListener(chunkLoadManager), this);
         getServer().getPluginManager().registerEvents(new PlayerQuitListener(chunkLoadManager), this);
+        getServer().getPluginManager().registerEvents(new PlayerTeleportListener(chunkLoadManager), this);
+        getServer().getPluginManager().registerEvents(new ChunkStateListener(chunkLoadManager.getLoadedChunks()), this);
         
         // Register commands
         PCLCommand pclCommand = new PCLCommand(this, chunkLoadManager);
@@ -33,19 +43,38 @@ public class Plugin extends JavaPlugin {
             command.setTabCompleter(pclCommand);
         }
         
+        // Expose the API to other plugins
+        getServer().getServicesManager().register(ProactiveChunkLoaderAPI.class,
+            new ChunkLoaderService(chunkLoadManager), this, ServicePriority.Normal);
+        
         // Start the chunk loading task
         chunkLoadManager.startTask();
         
+        // Continue a pregeneration that was running when the server stopped
+        chunkLoadManager.getPregenerator().restore();
+        
+        // Start the Prometheus metrics exporters if enabled
+        metricsExporter = new MetricsExporter(this, chunkLoadManager.getMetrics(), chunkLoadManager.getBookkeeping());
+        metricsExporter.start();
+        
         getLogger().info("ProactiveChunkLoader v" + this.getPluginMeta().getVersion() + " activated");
         getLogger().info("Pre-loading chunks in players' path to reduce lag spikes");
     }
 
     @Override
     public void onDisable() {
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        
         // Ensure task is stopped
         if (chunkLoadManager != null) {
+            chunkLoadManager.getPregenerator().shutdown();
             chunkLoadManager.stopTask();
+            chunkLoadManager.getMovementRecorder().shutdown();
+            chunkLoadManager.getBookkeeping().stop();
         }
+        getServer().getServicesManager().unregisterAll(this);
         
         getLogger().info("ProactiveChunkLoader deactivated");
     }
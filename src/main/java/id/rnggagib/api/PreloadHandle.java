@@ -0,0 +1,38 @@
+package id.rnggagib.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handle to a preload request made through {@link ProactiveChunkLoaderAPI}
+ */
+public interface PreloadHandle {
+
+    /**
+     * Get the future that completes once every chunk of the request has been loaded
+     * It completes exceptionally if the request is cancelled, a chunk misses its deadline or a chunk fails to load,
+     * the chunks of the request still waiting in the queue are dropped then
+     * @return The completion future
+     */
+    CompletableFuture<Void> getFuture();
+
+    /**
+     * Cancel the request, chunks that were not dispatched yet are dropped from the queue
+     * @return true if the request was still pending
+     */
+    boolean cancel();
+
+    /**
+     * @return true if the request was cancelled
+     */
+    boolean isCancelled();
+
+    /**
+     * @return The number of chunks in the request
+     */
+    int getTotalChunks();
+
+    /**
+     * @return The number of chunks loaded so far
+     */
+    int getLoadedChunks();
+}
@@ -0,0 +1,37 @@
+package id.rnggagib.api;
+
+/**
+ * Priority classes for chunk preload requests made through the API
+ */
+public enum PriorityClass {
+    /**
+     * Served through the urgent lane before anything else, like teleport destinations
+     */
+    URGENT(Integer.MAX_VALUE),
+    /**
+     * Ahead of every chunk planned for moving players
+     */
+    HIGH(1000),
+    /**
+     * Competes with the chunks planned for moving players
+     */
+    NORMAL(10),
+    /**
+     * Only loaded when nothing else is waiting
+     */
+    LOW(0);
+
+    private final int queuePriority;
+
+    PriorityClass(int queuePriority) {
+        this.queuePriority = queuePriority;
+    }
+
+    /**
+     * Get the priority this class maps to inside the loading queue
+     * @return The queue priority (higher values = higher priority)
+     */
+    public int getQueuePriority() {
+        return queuePriority;
+    }
+}
@@ -0,0 +1,55 @@
+package id.rnggagib.api;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * Public API of ProactiveChunkLoader
+ * Lets other plugins schedule chunk loads through the same queue the plugin uses for players,
+ * instead of running a second loader that competes for chunk IO
+ *
+ * Obtain it from the Bukkit services manager:
+ * <pre>
+ * ProactiveChunkLoaderAPI api = Bukkit.getServicesManager().load(ProactiveChunkLoaderAPI.class);
+ * </pre>
+ * All methods are safe to call from any thread
+ */
+public interface ProactiveChunkLoaderAPI {
+
+    /**
+     * Request a single chunk to be loaded
+     * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @param priority The priority class
+     * @param deadlineMillis Milliseconds from now after which the load is no longer useful, 0 for no deadline
+     * @return Handle to the request
+     */
+    PreloadHandle requestChunk(World world, int chunkX, int chunkZ, PriorityClass priority, long deadlineMillis);
+
+    /**
+     * Request every chunk in a rectangular region to be loaded, nearest to the center first
+     * @param world The world
+     * @param minChunkX Minimum chunk X (inclusive)
+     * @param minChunkZ Minimum chunk Z (inclusive)
+     * @param maxChunkX Maximum chunk X (inclusive)
+     * @param maxChunkZ Maximum chunk Z (inclusive)
+     * @param priority The priority class
+     * @param deadlineMillis Milliseconds from now after which the loads are no longer useful, 0 for no deadline
+     * @return Handle to the request
+     */
+    PreloadHandle requestRegion(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                                PriorityClass priority, long deadlineMillis);
+
+    /**
+     * Announce a planned teleport so the destination starts loading before the player is moved
+     * Must be called from the main thread
+     * @param destination The teleport destination
+     */
+    void announceTeleport(Location destination);
+
+    /**
+     * @return The number of chunks currently waiting to be loaded
+     */
+    int getQueueSize();
+}
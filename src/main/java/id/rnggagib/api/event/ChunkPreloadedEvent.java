@@ -0,0 +1,65 @@
+package id.rnggagib.api.event;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called when a chunk from the loading queue has finished loading
+ * Usually fired asynchronously from the plugin's bookkeeping threads, but synchronously on the main thread
+ * while the bookkeeping executor is saturated, check {@link #isAsynchronous()} before touching the world
+ */
+public class ChunkPreloadedEvent extends Event {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final World world;
+    private final int chunkX;
+    private final int chunkZ;
+    private final int priority;
+    private final long loadTimeMs;
+
+    public ChunkPreloadedEvent(World world, int chunkX, int chunkZ, int priority, long loadTimeMs) {
+        super(!Bukkit.isPrimaryThread());
+        this.world = world;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.priority = priority;
+        this.loadTimeMs = loadTimeMs;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    /**
+     * @return The queue priority the chunk was loaded with
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return Time between dispatch and completion of the load in milliseconds
+     */
+    public long getLoadTimeMs() {
+        return loadTimeMs;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
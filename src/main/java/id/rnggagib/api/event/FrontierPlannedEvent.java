@@ -0,0 +1,52 @@
+package id.rnggagib.api.event;
+
+import id.rnggagib.logic.MovementMode;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called after the loading frontier ahead of a player has been planned and queued
+ */
+public class FrontierPlannedEvent extends Event {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Player player;
+    private final MovementMode mode;
+    private final int queuedChunks;
+
+    public FrontierPlannedEvent(Player player, MovementMode mode, int queuedChunks) {
+        super(!Bukkit.isPrimaryThread());
+        this.player = player;
+        this.mode = mode;
+        this.queuedChunks = queuedChunks;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return The movement mode the frontier was planned for
+     */
+    public MovementMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return The number of chunks newly added to the queue
+     */
+    public int getQueuedChunks() {
+        return queuedChunks;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
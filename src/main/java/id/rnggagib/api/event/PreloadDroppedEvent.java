@@ -0,0 +1,71 @@
+package id.rnggagib.api.event;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called when a queued chunk is dropped without being loaded
+ */
+public class PreloadDroppedEvent extends Event {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final World world;
+    private final int chunkX;
+    private final int chunkZ;
+    private final Reason reason;
+
+    public PreloadDroppedEvent(World world, int chunkX, int chunkZ, Reason reason) {
+        super(!Bukkit.isPrimaryThread());
+        this.world = world;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.reason = reason;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * Why a chunk was dropped
+     */
+    public enum Reason {
+        /** The API request it belonged to was cancelled */
+        CANCELLED,
+        /** Its deadline passed before it was dispatched */
+        DEADLINE_EXPIRED,
+        /** The player it was planned for teleported away or changed world */
+        FRONTIER_RESET,
+        /** The load itself failed */
+        FAILED,
+        /** It was shed to relieve memory pressure */
+        MEMORY_PRESSURE,
+        /** No player was near it any more, or it came into a player's view distance where the server loads it itself */
+        NOT_NEEDED,
+        /** It was shed because more planned chunks were queued than the queue cap allows */
+        QUEUE_FULL
+    }
+}
@@ -1,8 +1,12 @@
 package id.rnggagib.commands;
 
 import id.rnggagib.logic.ChunkLoadManager;
+import id.rnggagib.logic.Pregenerator;
+import id.rnggagib.platform.BukkitWorld;
+import id.rnggagib.trace.TraceRecorder;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -42,8 +46,12 @@ public class PCLCommand implements CommandExecutor, TabCompleter {
                     return true;
                 }
                 plugin.reloadConfig();
-                chunkLoadManager.loadConfig();
-                sender.sendMessage(Component.text("ProactiveChunkLoader configuration reloaded.").color(NamedTextColor.GREEN));
+                chunkLoadManager.reloadConfig(warnings -> {
+                    for (String warning : warnings) {
+                        sender.sendMessage(Component.text("Config: " + warning).color(NamedTextColor.YELLOW));
+                    }
+                    sender.sendMessage(Component.text("ProactiveChunkLoader configuration reloaded.").color(NamedTextColor.GREEN));
+                });
                 return true;
             case "info":
                 sender.sendMessage(
@@ -71,6 +79,20 @@ public class PCLCommand implements CommandExecutor, TabCompleter {
                 }
                 showStats(sender);
                 return true;
+            case "trace":
+                if (!sender.hasPermission("proactivechunkloader.admin")) {
+                    sender.sendMessage(Component.text("You don't have permission to use this command.").color(NamedTextColor.RED));
+                    return true;
+                }
+                handleTrace(sender, args);
+                return true;
+            case "pregen":
+                if (!sender.hasPermission("proactivechunkloader.admin")) {
+                    sender.sendMessage(Component.text("You don't have permission to use this command.").color(NamedTextColor.RED));
+                    return true;
+                }
+                handlePregen(sender, args);
+                return true;
             case "help":
             default:
                 showHelp(sender);
@@ -100,7 +122,116 @@ public class PCLCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage(
                 Component.text("/pcl reload").color(NamedTextColor.GREEN)
                     .append(Component.text(" - Reload the plugin configuration").color(NamedTextColor.WHITE))
-            );        }
+            );
+            sender.sendMessage(
+                Component.text("/pcl trace <dump|on|off>").color(NamedTextColor.GREEN)
+                    .append(Component.text(" - Dump or toggle the loading trace buffer").color(NamedTextColor.WHITE))
+            );
+            sender.sendMessage(
+                Component.text("/pcl pregen <world> <radius>").color(NamedTextColor.GREEN)
+                    .append(Component.text(" - Pregenerate the chunks around a world's spawn while the server is idle").color(NamedTextColor.WHITE))
+            );
+            sender.sendMessage(
+                Component.text("/pcl pregen <status|stop|resume|cancel>").color(NamedTextColor.GREEN)
+                    .append(Component.text(" - Show or control the pregeneration").color(NamedTextColor.WHITE))
+            );
+        }
+    }
+    
+    /**
+     * Handle the trace subcommand
+     * @param sender The command sender
+     * @param args The command arguments
+     */
+    private void handleTrace(CommandSender sender, String[] args) {
+        TraceRecorder traceRecorder = chunkLoadManager.getTraceRecorder();
+        String action = args.length > 1 ? args[1].toLowerCase() : "";
+        switch (action) {
+            case "dump":
+                sender.sendMessage(Component.text("Writing trace buffer...").color(NamedTextColor.GREEN));
+                chunkLoadManager.dumpTrace(message -> sender.sendMessage(Component.text(message).color(NamedTextColor.GREEN)));
+                break;
+            case "on":
+            case "off":
+                traceRecorder.setEnabled(action.equals("on"));
+                sender.sendMessage(Component.text("Tracing " + (traceRecorder.isEnabled() ? "enabled" : "disabled") + ".")
+                    .color(NamedTextColor.GREEN));
+                break;
+            default:
+                sender.sendMessage(
+                    Component.text("Tracing: ").color(NamedTextColor.GREEN)
+                        .append(Component.text((traceRecorder.isEnabled() ? "Enabled" : "Disabled")
+                            + " (" + traceRecorder.getRecordedCount() + " records, capacity " + traceRecorder.getCapacity() + ")")
+                            .color(NamedTextColor.WHITE))
+                );
+                sender.sendMessage(Component.text("Usage: /pcl trace <dump|on|off>").color(NamedTextColor.GOLD));
+                break;
+        }
+    }
+    
+    /**
+     * Handle the pregen subcommand
+     * @param sender The command sender
+     * @param args The command arguments
+     */
+    private void handlePregen(CommandSender sender, String[] args) {
+        Pregenerator pregenerator = chunkLoadManager.getPregenerator();
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+        String error;
+        switch (action) {
+            case "status":
+                List<String> status = pregenerator.getStatus();
+                if (status.isEmpty()) {
+                    sender.sendMessage(Component.text("No pregeneration. Usage: /pcl pregen <world> <radius>").color(NamedTextColor.GOLD));
+                }
+                for (String line : status) {
+                    sender.sendMessage(Component.text(line).color(NamedTextColor.GREEN));
+                }
+                return;
+            case "stop":
+                error = pregenerator.stop();
+                if (error == null) {
+                    sender.sendMessage(Component.text("Pregeneration stopped, resume it with /pcl pregen resume.").color(NamedTextColor.GREEN));
+                }
+                break;
+            case "resume":
+                error = pregenerator.resume();
+                if (error == null) {
+                    sender.sendMessage(Component.text("Pregeneration resumed.").color(NamedTextColor.GREEN));
+                }
+                break;
+            case "cancel":
+                error = pregenerator.cancel();
+                if (error == null) {
+                    sender.sendMessage(Component.text("Pregeneration cancelled.").color(NamedTextColor.GREEN));
+                }
+                break;
+            default:
+                World world = plugin.getServer().getWorld(args[1]);
+                if (world == null) {
+                    sender.sendMessage(Component.text("Unknown world: " + args[1]).color(NamedTextColor.RED));
+                    return;
+                }
+                int radius;
+                try {
+                    radius = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+                } catch (NumberFormatException e) {
+                    radius = 0;
+                }
+                if (radius <= 0) {
+                    sender.sendMessage(Component.text("Usage: /pcl pregen <world> <radius in chunks>").color(NamedTextColor.GOLD));
+                    return;
+                }
+                error = pregenerator.start(new BukkitWorld(world), radius);
+                if (error == null) {
+                    sender.sendMessage(Component.text("Pregenerating " + world.getName() + " within " + radius
+                        + " chunks of spawn. It pauses while players are online.").color(NamedTextColor.GREEN));
+                }
+                break;
+        }
+        if (error != null) {
+            sender.sendMessage(Component.text(error).color(NamedTextColor.RED));
+        }
     }
     
     @Override
@@ -114,12 +245,28 @@ public class PCLCommand implements CommandExecutor, TabCompleter {
             }
             if (sender.hasPermission("proactivechunkloader.admin")) {
                 subCommands.add("reload");
+                subCommands.add("trace");
+                subCommands.add("pregen");
             }
             
             String partialCommand = args[0].toLowerCase();
             completions = subCommands.stream()
                 .filter(cmd -> cmd.startsWith(partialCommand))
                 .collect(Collectors.toList());
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("trace") && sender.hasPermission("proactivechunkloader.admin")) {
+            String partialAction = args[1].toLowerCase();
+            completions = Arrays.asList("dump", "on", "off").stream()
+                .filter(action -> action.startsWith(partialAction))
+                .collect(Collectors.toList());
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("pregen") && sender.hasPermission("proactivechunkloader.admin")) {
+            List<String> options = new ArrayList<>(Arrays.asList("status", "stop", "resume", "cancel"));
+            for (World world : plugin.getServer().getWorlds()) {
+                options.add(world.getName());
+            }
+            String partialAction = args[1].toLowerCase();
+            completions = options.stream()
+                .filter(option -> option.toLowerCase().startsWith(partialAction))
+                .collect(Collectors.toList());
         }
         
         return completions;
@@ -148,6 +295,11 @@ public class PCLCommand implements CommandExecutor, TabCompleter {
                 .append(Component.text(String.valueOf(stats.get("chunksLoadedLastMinute"))).color(NamedTextColor.WHITE))
         );
         
+        sender.sendMessage(
+            Component.text("Chunks loaded (last hour): ").color(NamedTextColor.GREEN)
+                .append(Component.text(String.valueOf(stats.get("chunksLoadedLastHour"))).color(NamedTextColor.WHITE))
+        );
+        
         sender.sendMessage(
             Component.text("Current queue size: ").color(NamedTextColor.GREEN)
                 .append(Component.text(String.valueOf(stats.get("currentQueueSize"))).color(NamedTextColor.WHITE))
@@ -181,5 +333,35 @@ public class PCLCommand implements CommandExecutor, TabCompleter {
                     .append(Component.text(String.valueOf(stats.get("effectiveChunksPerTick"))).color(NamedTextColor.WHITE))
             );
         }
+        
+        // Display memory pressure with color indication
+        String memoryState = (String) stats.get("memoryState");
+        NamedTextColor memoryColor = NamedTextColor.GREEN;
+        if (memoryState.equals("RECOVERING")) {
+            memoryColor = NamedTextColor.YELLOW;
+        } else if (memoryState.equals("ELEVATED")) {
+            memoryColor = NamedTextColor.GOLD;
+        } else if (memoryState.equals("CRITICAL")) {
+            memoryColor = NamedTextColor.RED;
+        }
+        
+        sender.sendMessage(
+            Component.text("Memory pressure: ").color(NamedTextColor.GREEN)
+                .append(Component.text(String.format("%s (old gen %.0f%%, loading at %.0f%%)", memoryState.toLowerCase(),
+                    (Double) stats.get("memoryOccupancy") * 100, (Double) stats.get("memoryThrottle") * 100)).color(memoryColor))
+        );
+        
+        sender.sendMessage(
+            Component.text("Queue cap / in flight: ").color(NamedTextColor.GREEN)
+                .append(Component.text(formatLimit(stats.get("queueCap")) + " / " + stats.get("inFlightLoads") + " of "
+                    + formatLimit(stats.get("inFlightLimit"))).color(NamedTextColor.WHITE))
+        );
+    }
+    
+    /**
+     * Format a memory governor limit, which is unlimited while the governor is disabled
+     */
+    private String formatLimit(Object limit) {
+        return Integer.valueOf(Integer.MAX_VALUE).equals(limit) ? "unlimited" : String.valueOf(limit);
     }
 }
@@ -0,0 +1,63 @@
+package id.rnggagib.listeners;
+
+import id.rnggagib.logic.LoadedChunkBitmap;
+import id.rnggagib.platform.BukkitWorld;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Listener for chunk and world load events
+ * Keeps the loaded chunk bitmap in step with the worlds
+ */
+public class ChunkStateListener implements Listener {
+    private final LoadedChunkBitmap loadedChunks;
+
+    public ChunkStateListener(LoadedChunkBitmap loadedChunks) {
+        this.loadedChunks = loadedChunks;
+    }
+
+    /**
+     * Handle chunk load event
+     * @param event The chunk load event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        loadedChunks.setLoaded(event.getWorld().getUID(), chunk.getX(), chunk.getZ());
+    }
+
+    /**
+     * Handle chunk unload event
+     * @param event The chunk unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        loadedChunks.setUnloaded(event.getWorld().getUID(), chunk.getX(), chunk.getZ());
+    }
+
+    /**
+     * Handle world load event
+     * Picks up the spawn chunks a world loaded before its own load event
+     * @param event The world load event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        loadedChunks.seed(event.getWorld().getUID(), new BukkitWorld(event.getWorld()).getLoadedChunks());
+    }
+
+    /**
+     * Handle world unload event
+     * @param event The world unload event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        loadedChunks.clear(event.getWorld().getUID());
+    }
+}
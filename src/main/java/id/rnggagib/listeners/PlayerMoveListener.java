@@ -1,15 +1,18 @@
 package id.rnggagib.listeners;
 
 import id.rnggagib.logic.ChunkLoadManager;
+import id.rnggagib.platform.BukkitPlayer;
 import org.bukkit.Chunk;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
 
 /**
- * Listener for player movement to detect chunk changes
+ * Listener for player and vehicle movement to detect chunk changes
  */
 public class PlayerMoveListener implements Listener {
     private final ChunkLoadManager chunkLoadManager;
@@ -34,7 +37,29 @@ public class PlayerMoveListener implements Listener {
             Player player = event.getPlayer();
             
             // Queue chunks for loading based on player's direction
-            chunkLoadManager.queueChunksForPlayer(player);
+            chunkLoadManager.queueChunksForPlayer(new BukkitPlayer(player));
+        }
+    }
+
+    /**
+     * Handle vehicle movement event
+     * Players riding boats, minecarts and horses do not fire move events of their own
+     * @param event The vehicle move event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onVehicleMove(VehicleMoveEvent event) {
+        int fromX = event.getFrom().getBlockX() >> 4;
+        int fromZ = event.getFrom().getBlockZ() >> 4;
+        int toX = event.getTo().getBlockX() >> 4;
+        int toZ = event.getTo().getBlockZ() >> 4;
+        
+        // Only process if the vehicle has moved to a different chunk
+        if (fromX != toX || fromZ != toZ) {
+            for (Entity passenger : event.getVehicle().getPassengers()) {
+                if (passenger instanceof Player) {
+                    chunkLoadManager.queueChunksForPlayer(new BukkitPlayer((Player) passenger));
+                }
+            }
         }
     }
 }
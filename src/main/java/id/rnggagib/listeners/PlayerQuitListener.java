@@ -1,6 +1,7 @@
 package id.rnggagib.listeners;
 
 import id.rnggagib.logic.ChunkLoadManager;
+import id.rnggagib.platform.BukkitPlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -26,6 +27,6 @@ public class PlayerQuitListener implements Listener {
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
-        chunkLoadManager.handlePlayerQuit(player);
+        chunkLoadManager.handlePlayerQuit(new BukkitPlayer(player));
     }
 }
@@ -0,0 +1,83 @@
+package id.rnggagib.listeners;
+
+import id.rnggagib.logic.ChunkLoadManager;
+import id.rnggagib.platform.BukkitPlayer;
+import id.rnggagib.platform.BukkitWorld;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerPortalEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+/**
+ * Listener for teleports, portals and respawns
+ * Starts loading the destination before the player arrives and resets prediction state
+ */
+public class PlayerTeleportListener implements Listener {
+    private final ChunkLoadManager chunkLoadManager;
+
+    public PlayerTeleportListener(ChunkLoadManager chunkLoadManager) {
+        this.chunkLoadManager = chunkLoadManager;
+    }
+
+    /**
+     * Handle player teleport event
+     * @param event The player teleport event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        handleTeleport(event.getPlayer(), event.getFrom(), event.getTo());
+    }
+
+    /**
+     * Handle player portal event
+     * Portal events have their own handler list, so they are not seen by the teleport handler
+     * @param event The player portal event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerPortal(PlayerPortalEvent event) {
+        handleTeleport(event.getPlayer(), event.getFrom(), event.getTo());
+    }
+
+    /**
+     * Handle player respawn event
+     * @param event The player respawn event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        Location destination = event.getRespawnLocation();
+        chunkLoadManager.resetPlayerState(new BukkitPlayer(event.getPlayer()), true);
+        if (destination.getWorld() != null) {
+            chunkLoadManager.preloadDestination(new BukkitWorld(destination.getWorld()),
+                destination.getBlockX() >> 4, destination.getBlockZ() >> 4);
+        }
+    }
+
+    /**
+     * Handle player changed world event
+     * Catches world changes caused by other plugins that bypass the teleport events
+     * @param event The player changed world event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        chunkLoadManager.resetPlayerState(new BukkitPlayer(event.getPlayer()), true);
+    }
+
+    private void handleTeleport(Player player, Location from, Location to) {
+        if (to == null || to.getWorld() == null) {
+            return;
+        }
+
+        // Drop the old frontier if the player leaves the world or jumps beyond view distance
+        boolean farTeleport = from.getWorld() != to.getWorld()
+            || Math.abs((from.getBlockX() >> 4) - (to.getBlockX() >> 4)) > player.getServer().getViewDistance()
+            || Math.abs((from.getBlockZ() >> 4) - (to.getBlockZ() >> 4)) > player.getServer().getViewDistance();
+
+        chunkLoadManager.resetPlayerState(new BukkitPlayer(player), farTeleport);
+        chunkLoadManager.preloadDestination(new BukkitWorld(to.getWorld()), to.getBlockX() >> 4, to.getBlockZ() >> 4);
+    }
+}
@@ -0,0 +1,111 @@
+package id.rnggagib.logic;
+
+import id.rnggagib.metrics.MetricsRegistry;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs the plugin's own bookkeeping (stats, metrics, tracing, events) away from the server's threads
+ * Chunk load callbacks, which Paper completes on the main thread, only hand their work to it so ticks are not held up
+ *
+ * Uses virtual threads when the server runs on Java 21 or newer, otherwise a small bounded pool of daemon threads.
+ * Work that does not fit into the pool's queue, or arrives after shutdown, runs on the calling thread instead of being lost.
+ */
+public class BookkeepingExecutor implements Executor {
+    private static final int PLATFORM_THREADS = 2;
+    private static final int PLATFORM_QUEUE_CAPACITY = 16384;
+
+    private final Logger logger;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final MetricsRegistry.Counter overflows;
+
+    /**
+     * @param logger The plugin logger
+     * @param overflows Counts the tasks that ran on the calling thread
+     */
+    public BookkeepingExecutor(Logger logger, MetricsRegistry.Counter overflows) {
+        this.logger = logger;
+        this.overflows = overflows;
+        ExecutorService created = createVirtual();
+        this.virtual = created != null;
+        if (created == null) {
+            AtomicInteger threadCount = new AtomicInteger(0);
+            created = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PLATFORM_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "ProactiveChunkLoader-Bookkeeping-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            ((ThreadPoolExecutor) created).allowCoreThreadTimeOut(true);
+        }
+        this.executor = created;
+    }
+
+    /**
+     * Create a virtual thread per task executor through reflection, the plugin is compiled for Java 17
+     * @return The executor, or null if virtual threads are not available
+     */
+    private static ExecutorService createVirtual() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 17, or Java 19/20 without preview features enabled
+            return null;
+        }
+    }
+
+    /**
+     * Queue a task, safe to call from any thread
+     * @param task The task
+     */
+    @Override
+    public void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            overflows.increment();
+            task.run();
+        }
+    }
+
+    /**
+     * Stop accepting work and wait briefly for queued tasks to finish
+     */
+    public void stop() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                logger.warning("Bookkeeping tasks did not finish within 2 seconds, dropping the rest");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true if tasks run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * @return The number of tasks that ran on the calling thread because the executor was full or stopped
+     */
+    public long getOverflowCount() {
+        return overflows.get();
+    }
+}
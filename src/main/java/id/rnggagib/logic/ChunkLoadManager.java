@@ -1,108 +1,226 @@
 package id.rnggagib.logic;
 
-import org.bukkit.Chunk;
-import org.bukkit.World;
-import org.bukkit.entity.Player;
-import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.block.BlockFace;
-import org.bukkit.util.Vector;
-import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import id.rnggagib.api.PriorityClass;
+import id.rnggagib.api.event.PreloadDroppedEvent;
+import id.rnggagib.metrics.LoadStats;
+import id.rnggagib.metrics.MetricsRegistry;
+import id.rnggagib.trace.MovementRecorder;
+import id.rnggagib.trace.RateLimitedLogger;
+import id.rnggagib.trace.TraceRecorder;
+import id.rnggagib.trace.TraceType;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.Queue;
-import java.util.PriorityQueue;
-import java.util.Comparator;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.LinkedHashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Manages the logic for queuing and loading chunks proactively
  * Enhanced version with priority-based loading and performance monitoring
+ *
+ * Reaches the server only through {@link LoaderPlatform}, so the simulator can run it on a fake clock and world
  */
 public class ChunkLoadManager {
-    private final JavaPlugin plugin;
-    private final Logger logger;    private final Queue<PrioritizedChunk> chunkQueue;
-    private final Set<ChunkCoordinate> queuedChunks = ConcurrentHashMap.newKeySet();
-    private BukkitTask loaderTask;
-    private BukkitTask statsTask;
-    private BukkitTask movementTrackingTask;
-      // Configuration values
-    private int maxChunksPerTick;
-    private int frontierMinDistance;
-    private int frontierMaxDistance;
-    private int baseChunkWidth;
-    private boolean debug;
-    private boolean adaptiveTpsScaling;
-    private double minTps;
-    private boolean adaptiveConePrediction;
-    private int playerHistorySize;
-    private double speedInfluenceFactor;
-    private boolean enableExtraDetailedLogging;
-    private double coneSpreadFactor;
-    private double velocityInfluenceWeight;
-    private double minimumSpeedForPrediction;
+    private final LoaderPlatform platform;
+    private final LoaderScheduler scheduler;
+    private final Logger logger;
+    private final LoadQueue<PrioritizedChunk> chunkQueue;
+    // Urgent lane for teleport and respawn destinations, always drained before the normal queue
+    private final Queue<PrioritizedChunk> urgentQueue = new ConcurrentLinkedQueue<>();
+    // Queued chunks by coordinate, the entry is the copy that keeps the coordinate tracked
+    private final Map<ChunkCoordinate, PrioritizedChunk> queuedChunks = new ConcurrentHashMap<>();
+    private LoaderScheduler.Task loaderTask;
+    private LoaderScheduler.Task statsTask;
+    private LoaderScheduler.Task movementTrackingTask;
+      // Configuration snapshot, replaced as a whole on reload
+    private volatile LoaderConfig config;
     
     // Performance stats
-    private final Map<Long, Integer> chunksLoadedHistory = new HashMap<>();
-    private final AtomicInteger totalChunksLoaded = new AtomicInteger(0);
-    private final AtomicInteger chunksLoadedThisMinute = new AtomicInteger(0);
-    private long lastStatsReset = System.currentTimeMillis();
-    private final Map<String, Long> chunkLoadTimes = new ConcurrentHashMap<>();
-    private final LinkedHashMap<Integer, Integer> priorityDistribution = new LinkedHashMap<>();
+    private final LoadStats loadStats = new LoadStats();
+    private final AtomicInteger inFlightLoads = new AtomicInteger(0);
+    // Chunks preloaded recently, used to tell whether players actually walked into them
+    private final Map<ChunkCoordinate, Long> recentlyPreloaded = new ConcurrentHashMap<>();
+    
+    // Exported metrics
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Counter loadedCounter;
+    private final MetricsRegistry.LabeledCounter droppedCounter;
+    private final MetricsRegistry.LabeledCounter worldLoadedCounter;
+    private final MetricsRegistry.LabeledCounter worldQueuedCounter;
+    private final MetricsRegistry.Histogram loadLatency;
+    private final MetricsRegistry.Counter frontierHits;
+    private final MetricsRegistry.Counter frontierLate;
+    
+    // Tracing and rate-limited debug logging
+    private final TraceRecorder traceRecorder;
+    private final RateLimitedLogger debugLogger;
+    private final MovementRecorder movementRecorder;
+    
+    // Throttles loading under heap pressure
+    private final MemoryGovernor memoryGovernor;
+    
+    // Stats, metrics, tracing and events of completed loads run here instead of on the main thread
+    private final BookkeepingExecutor bookkeeping;
+    
+    // Shed the lowest queue level first, so LOW before planned chunks, then the lowest priority,
+    // then the entries whose deadline is furthest away (none counts as furthest)
+    private static final Comparator<PrioritizedChunk> SHED_ORDER = Comparator.<PrioritizedChunk>comparingInt(LoadQueue::levelOf)
+        .thenComparingInt(PrioritizedChunk::getPriority)
+        .thenComparing(Comparator.comparingLong(ChunkLoadManager::deadlineOf).reversed());
       // Store the last processed chunk for each player to prevent redundant processing
-    private final Map<Player, ChunkCoordinate> lastPlayerChunks = new ConcurrentHashMap<>();
+    private final Map<UUID, ChunkCoordinate> lastPlayerChunks = new ConcurrentHashMap<>();
     
     // Player movement history for better prediction
-    private final Map<Player, List<PlayerMovement>> playerMovementHistory = new ConcurrentHashMap<>();
-      public ChunkLoadManager(JavaPlugin plugin) {
-        this.plugin = plugin;
-        this.logger = plugin.getLogger();
-        // Initialize queue with priority comparator (higher values first, then by timestamp)
-        this.chunkQueue = new PriorityQueue<>(
-            Comparator.comparing(PrioritizedChunk::getPriority).reversed()
-                .thenComparing(PrioritizedChunk::getTimestamp)
-        );
+    private final Map<UUID, List<PlayerMovement>> playerMovementHistory = new ConcurrentHashMap<>();
+    
+    // Players travelling together share one frontier, planned once per tick for every group that moved
+    private final PlayerGrid playerGrid = new PlayerGrid(4);
+    private final Set<UUID> pendingGroupPlans = new LinkedHashSet<>();
+    private final GroupCells groupCells = new GroupCells();
+    private final CellList groupPlan = new CellList();
+    private LoaderScheduler.Task groupPlanTask;
+    
+    // Last rail trace per minecart rider, reused while the cart stays on the traced segment
+    private static final int RAIL_RETRACE_CHUNKS = 4;
+    private final Map<UUID, RailSegment> railSegments = new ConcurrentHashMap<>();
+    
+    // Where every online player stands, read by the loader to skip chunks nobody needs any more
+    private final PlayerChunkIndex playerIndex = new PlayerChunkIndex();
+    
+    // Which chunks are loaded, so planning skips them with a bit test instead of asking the world per cell
+    private final LoadedChunkBitmap loadedChunks = new LoadedChunkBitmap();
+    
+    // Feeds wide-area pregeneration into the queue while the server is idle
+    private final Pregenerator pregenerator;
+    public ChunkLoadManager(LoaderPlatform platform) {
+        this.platform = platform;
+        this.scheduler = platform.getScheduler();
+        this.logger = platform.getLogger();
+        this.chunkQueue = new LoadQueue<>(platform::currentTimeMillis, 0, 0);
+        // Register metrics
+        loadedCounter = metrics.counter("pcl_chunks_loaded_total", "Chunks loaded by the preloader");
+        droppedCounter = metrics.labeledCounter("pcl_chunks_dropped_total", "Queued chunks dropped without loading", "reason");
+        worldLoadedCounter = metrics.labeledCounter("pcl_world_chunks_loaded_total", "Chunks loaded per world", "world");
+        worldQueuedCounter = metrics.labeledCounter("pcl_world_chunks_queued_total", "Chunks queued per world", "world");
+        loadLatency = metrics.histogram("pcl_chunk_load_duration_seconds", "Time from dispatch to chunk load completion",
+            0.001, 0.002, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5);
+        frontierHits = metrics.counter("pcl_frontier_hits_total", "Player entered a chunk that was preloaded");
+        frontierLate = metrics.counter("pcl_frontier_late_total", "Player entered a chunk that was still waiting in the queue");
+        metrics.gauge("pcl_queue_depth", "Chunks waiting in the queue", () -> chunkQueue.size());
+        metrics.gauge("pcl_urgent_queue_depth", "Chunks waiting in the urgent lane", () -> urgentQueue.size());
+        metrics.gauge("pcl_inflight_loads", "Chunk loads dispatched but not yet completed", () -> inFlightLoads.get());
+        metrics.gauge("pcl_loads_per_second", "Chunks loaded per second over the last minute",
+            () -> loadStats.snapshot(platform.currentTimeMillis()).getLoadedLastMinute() / 60.0);
+        metrics.gauge("pcl_frontier_hit_ratio", "Share of entered chunks that were preloaded in time", () -> {
+            long hits = frontierHits.get();
+            long total = hits + frontierLate.get();
+            return total > 0 ? (double) hits / total : 0;
+        });
+        
+        // The trace buffer is preallocated once, its capacity only changes on restart
+        traceRecorder = new TraceRecorder(platform.getConfig().getInt("trace.capacity", 65536));
+        debugLogger = new RateLimitedLogger(logger, 20);
+        memoryGovernor = new MemoryGovernor(logger);
+        metrics.gauge("pcl_memory_throttle", "Share of the normal loading capacity allowed under memory pressure",
+            () -> memoryGovernor.getThrottle());
+        movementRecorder = new MovementRecorder(logger, platform.getConfig().getInt("recorder.buffer-samples", 8192));
+        bookkeeping = new BookkeepingExecutor(logger, metrics.counter("pcl_bookkeeping_overflow_total",
+            "Bookkeeping tasks that ran on the calling thread because the executor was full"));
+        
+        // Worlds loaded before the plugin was enabled (or on /reload) already have chunks loaded
+        for (LoaderWorld world : platform.getWorlds()) {
+            loadedChunks.seed(world.getUID(), world.getLoadedChunks());
+        }
         
         // Load configuration
         loadConfig();
+        
+        pregenerator = new Pregenerator(platform, this);
     }
     
     /**
      * Load configuration values from config.yml
-     */    public void loadConfig() {
-        plugin.saveDefaultConfig();
+     * Builds and applies the snapshot on the calling thread, used when the plugin starts
+     */
+    public void loadConfig() {
+        platform.saveDefaultConfig();
+        applyConfig(new LoaderConfig(platform.getConfig(), platform.getViewDistance()));
+    }
+    
+    /**
+     * Reload the configuration without blocking the main thread on validation and precomputation
+     * Must be called from the main thread after the plugin's config was reloaded
+     * @param callback Receives the validation warnings on the main thread once the new settings are live
+     */
+    public void reloadConfig(Consumer<List<String>> callback) {
+        ConfigurationSection source = platform.getConfig();
+        int viewDistance = platform.getViewDistance();
+        scheduler.runAsync(() -> {
+            LoaderConfig loaded = new LoaderConfig(source, viewDistance);
+            scheduler.runTask(() -> {
+                applyConfig(loaded);
+                callback.accept(loaded.getWarnings());
+            });
+        });
+    }
+    
+    /**
+     * Publish a new configuration snapshot and hand its settings to the components that keep their own state
+     * Must be called from the main thread
+     * @param loaded The new snapshot
+     */
+    private void applyConfig(LoaderConfig loaded) {
+        config = loaded;
+        for (String warning : loaded.getWarnings()) {
+            logger.warning("Config: " + warning);
+        }
         
-        maxChunksPerTick = plugin.getConfig().getInt("max-chunks-per-tick", 1);
-        frontierMinDistance = plugin.getConfig().getInt("frontier-distance.min", 1);
-        frontierMaxDistance = plugin.getConfig().getInt("frontier-distance.max", 3);
-        baseChunkWidth = plugin.getConfig().getInt("frontier-width", 1);
-        debug = plugin.getConfig().getBoolean("debug", false);
+        traceRecorder.setEnabled(loaded.isTraceEnabled());
+        debugLogger.setMessagesPerSecond(loaded.getDebugMessagesPerSecond());
         
-        // Advanced configuration
-        adaptiveTpsScaling = plugin.getConfig().getBoolean("performance.adaptive-tps-scaling", true);
-        minTps = plugin.getConfig().getDouble("performance.minimum-tps", 18.0);
-        adaptiveConePrediction = plugin.getConfig().getBoolean("advanced.adaptive-cone-prediction", true);
-        playerHistorySize = plugin.getConfig().getInt("advanced.player-history-size", 10);
-        speedInfluenceFactor = plugin.getConfig().getDouble("advanced.speed-influence-factor", 1.0);
-        enableExtraDetailedLogging = plugin.getConfig().getBoolean("advanced.extra-detailed-logging", false);
+        // Movement recording, restarted on a fresh file only when its settings changed
+        if (loaded.isRecorderEnabled()) {
+            movementRecorder.start(new File(platform.getDataFolder(), loaded.getRecorderDirectory()),
+                loaded.getRecorderRotateBytes(), loaded.getRecorderMaxTotalBytes());
+        } else {
+            movementRecorder.stop();
+        }
         
-        // New V2.0 configuration values
-        coneSpreadFactor = plugin.getConfig().getDouble("advanced.cone-spread-factor", 0.4);
-        velocityInfluenceWeight = plugin.getConfig().getDouble("advanced.velocity-influence-weight", 0.3);
-        minimumSpeedForPrediction = plugin.getConfig().getDouble("advanced.minimum-speed-for-prediction", 0.5);
+        playerGrid.setCellSize(loaded.getGroupRadius());
+        playerGrid.clearPlans();
+        chunkQueue.setAging(loaded.getQueueAgingMillis(), loaded.getQueueMaxBoost());
         
-        if (debug) {
-            logger.info("Config loaded: maxChunksPerTick=" + maxChunksPerTick + 
-                       ", frontierDistance=" + frontierMinDistance + "-" + frontierMaxDistance +
-                       ", baseChunkWidth=" + baseChunkWidth);
+        memoryGovernor.configure(loaded.isMemoryGovernorEnabled(), loaded.getMemoryHighThreshold(),
+            loaded.getMemoryCriticalThreshold(), loaded.getMemoryQueueCap(), loaded.getMemoryMaxInFlight(),
+            loaded.getMemoryRecoveryPerSecond());
+        
+        if (loaded.isDebug()) {
+            logger.info("Config loaded: maxChunksPerTick=" + loaded.getMaxChunksPerTick() + 
+                       ", frontierDistance=" + loaded.getFrontierMinDistance() + "-" + loaded.getFrontierMaxDistance() +
+                       ", baseChunkWidth=" + loaded.getBaseChunkWidth());
         }
     }
     
@@ -112,84 +230,56 @@ public class ChunkLoadManager {
     public void startTask() {
         // Cancel any existing tasks
         stopTask();
+        memoryGovernor.start();
         
         // Chunk loading task
-        this.loaderTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Adjust maxChunksPerTick based on server TPS if adaptive scaling is enabled
-                int chunksToProcess = maxChunksPerTick;
-                if (adaptiveTpsScaling) {
-                    double tps = plugin.getServer().getTPS()[0]; // Get current 1-minute TPS
-                    if (tps < minTps) {
-                        // Reduce chunks processed when TPS is low
-                        double ratio = Math.max(0.1, (tps / 20.0));
-                        chunksToProcess = Math.max(1, (int)(maxChunksPerTick * ratio));
-                        if (debug) {
-                            logger.info("TPS low (" + String.format("%.2f", tps) + "), reduced chunk processing to " + chunksToProcess);
-                        }
+        this.loaderTask = scheduler.runTimerAsync(() -> {
+            // One snapshot for the whole pass, a reload in between applies from the next pass
+            LoaderConfig config = this.config;
+            
+            // Pregeneration only feeds the queue while the server is idle, so it may use larger passes
+            int baseChunks = pregenerator.isFeeding()
+                ? Math.max(config.getMaxChunksPerTick(), config.getPregenChunksPerPass())
+                : config.getMaxChunksPerTick();
+            
+            // Adjust maxChunksPerTick based on server TPS if adaptive scaling is enabled
+            int chunksToProcess = baseChunks;
+            if (config.isAdaptiveTpsScaling()) {
+                double tps = platform.getTps(); // Get current 1-minute TPS
+                if (tps < config.getMinTps()) {
+                    // Reduce chunks processed when TPS is low
+                    double ratio = Math.max(0.1, (tps / 20.0));
+                    chunksToProcess = Math.max(1, (int)(baseChunks * ratio));
+                    if (config.isDebug()) {
+                        final int reduced = chunksToProcess;
+                        debugLogger.info(() -> "TPS low (" + String.format("%.2f", tps) + "), reduced chunk processing to " + reduced);
                     }
                 }
-                
-                processNextChunk(chunksToProcess);
             }
-        }.runTaskTimerAsynchronously(plugin, 1L, 5L); // Run every 5 ticks (1/4 second)
+            
+            processNextChunk(chunksToProcess, config);
+        }, 1L, 5L); // Run every 5 ticks (1/4 second)
         
-        // Stats tracking task
-        this.statsTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Record stats every minute
-                long now = System.currentTimeMillis();
-                long minute = now / 60000; // Current minute
-                
-                // Store chunks loaded this minute
-                int loaded = chunksLoadedThisMinute.getAndSet(0);
-                chunksLoadedHistory.put(minute, loaded);
-                
-                // Clean up old history (keep last hour only)
-                chunksLoadedHistory.entrySet().removeIf(entry -> entry.getKey() < (minute - 60));
-                
-                // Reset counter
-                lastStatsReset = now;
-                
-                if (debug) {
-                    logger.info("Stats: Loaded " + loaded + " chunks in the last minute. Total: " + totalChunksLoaded.get());
-                    
-                    // Log priority distribution
-                    if (enableExtraDetailedLogging && !priorityDistribution.isEmpty()) {
-                        StringBuilder sb = new StringBuilder("Priority distribution: ");
-                        priorityDistribution.forEach((priority, count) -> {
-                            sb.append(priority).append("=").append(count).append(", ");
-                        });
-                        logger.info(sb.substring(0, Math.max(sb.length() - 2, 0)));
-                        priorityDistribution.clear();
-                    }
-                    
-                    // Log average chunk load time
-                    if (!chunkLoadTimes.isEmpty()) {
-                        double avgLoadTime = chunkLoadTimes.values().stream()
-                                .mapToLong(Long::longValue)
-                                .average()
-                                .orElse(0);
-                        logger.info("Average chunk load time: " + String.format("%.2f", avgLoadTime) + "ms");
-                        chunkLoadTimes.clear();
-                    }
-                }
-            }
-        }.runTaskTimerAsynchronously(plugin, 1200L, 1200L); // Run every minute (1200 ticks)
+        // Stats tracking task, only hands the aggregation to the bookkeeping executor
+        this.statsTask = scheduler.runTimer(() -> bookkeeping.execute(this::aggregateStats),
+            1200L, 1200L); // Run every minute (1200 ticks)
         
         // Movement tracking task for velocity prediction
-        this.movementTrackingTask = new BukkitRunnable() {
-            @Override
-            public void run() {
+        this.movementTrackingTask = scheduler.runTimer(() -> {
+            boolean recording = movementRecorder.isEnabled();
+            boolean adaptiveConePrediction = config.isAdaptiveConePrediction();
+            int historySize = config.getPlayerHistorySize();
+            for (LoaderPlayer player : platform.getOnlinePlayers()) {
+                // Keeps the index current for players that have not triggered a move event
+                playerIndex.update(player.getUniqueId(), player.getWorld().getName(), player.getChunkX(), player.getChunkZ());
                 if (adaptiveConePrediction) {
-                    for (Player player : plugin.getServer().getOnlinePlayers()) {
-                        trackPlayerMovement(player);
-                    }
+                    trackPlayerMovement(player, historySize);
+                }
+                if (recording) {
+                    recordMovement(player);
                 }
             }
-        }.runTaskTimer(plugin, 5L, 5L); // Run every 5 ticks
+        }, 5L, 5L); // Run every 5 ticks
         
         logger.info("ProactiveChunkLoader tasks started");
     }
@@ -198,6 +288,7 @@ public class ChunkLoadManager {
      * Stop the chunk loading task
      */
     public void stopTask() {
+        memoryGovernor.stop();
         if (loaderTask != null && !loaderTask.isCancelled()) {
             loaderTask.cancel();
             logger.info("ProactiveChunkLoader loading task stopped");
@@ -212,83 +303,519 @@ public class ChunkLoadManager {
         }
     }
     
+    /**
+     * Expire old hit-rate entries and log the stats in debug mode
+     * Runs on the bookkeeping executor once a minute
+     */
+    private void aggregateStats() {
+        long now = platform.currentTimeMillis();
+        
+        // Chunks not entered within ten minutes no longer count towards the hit rate
+        recentlyPreloaded.values().removeIf(loadedAt -> loadedAt < now - 600000);
+        
+        LoaderConfig config = ChunkLoadManager.this.config;
+        if (config.isDebug()) {
+            LoadStats.Snapshot snapshot = loadStats.snapshot(now);
+            logger.info("Stats: Loaded " + snapshot.getLoadedLastMinute() + " chunks in the last minute. Total: " + snapshot.getTotalLoaded());
+            
+            // Log priority distribution
+            if (config.isExtraDetailedLogging()) {
+                Map<Integer, Long> distribution = loadStats.drainPriorityDistribution();
+                if (!distribution.isEmpty()) {
+                    StringBuilder sb = new StringBuilder("Priority distribution: ");
+                    distribution.forEach((priority, count) -> {
+                        sb.append(priority).append("=").append(count).append(", ");
+                    });
+                    logger.info(sb.substring(0, Math.max(sb.length() - 2, 0)));
+                }
+            }
+            
+            // Log average chunk load time
+            if (snapshot.getAverageLoadTimeMs() > 0) {
+                logger.info("Average chunk load time: " + String.format("%.2f", snapshot.getAverageLoadTimeMs()) + "ms");
+            }
+        }
+    }
+    
     /**
      * Track player movement for velocity prediction
      * @param player The player to track
+     * @param historySize Number of movement records to keep
      */
-    private void trackPlayerMovement(Player player) {
-        List<PlayerMovement> history = playerMovementHistory.computeIfAbsent(player, k -> new ArrayList<>());
+    private void trackPlayerMovement(LoaderPlayer player, int historySize) {
+        List<PlayerMovement> history = playerMovementHistory.computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>());
         
         // Add current position to history
-        Location loc = player.getLocation();
         PlayerMovement movement = new PlayerMovement(
-            loc.getWorld(),
-            loc.getX(),
-            loc.getY(),
-            loc.getZ(),
-            player.getVelocity(),
-            System.currentTimeMillis()
+            player.getWorld(),
+            player.getX(),
+            player.getY(),
+            player.getZ(),
+            player.getVelocityX(),
+            player.getVelocityZ(),
+            platform.currentTimeMillis()
         );
         
         history.add(movement);
         
         // Trim history to configured size
-        while (history.size() > playerHistorySize) {
+        while (history.size() > historySize) {
             history.remove(0);
         }
     }
     
+    /**
+     * Hand a movement sample to the recorder, which only copies it into its buffer
+     * @param player The player to record
+     */
+    private void recordMovement(LoaderPlayer player) {
+        movementRecorder.record(player.getUniqueId(), player.getName(), player.getWorld().getName(), platform.currentTimeMillis(),
+            player.getX(), player.getY(), player.getZ(), player.getVelocityX(), player.getVelocityZ(), player.getMode());
+    }
+    
     /**
      * Process the next chunk in the queue
      * @param chunksToProcess Number of chunks to process in this tick
+     * @param config The configuration snapshot of this pass
      */
-    private void processNextChunk(int chunksToProcess) {
+    private void processNextChunk(int chunksToProcess, LoaderConfig config) {
+        memoryGovernor.tick();
+        shedOverCap(config);
+        
+        // Under memory pressure fewer loads may be in flight at once
+        int permits = memoryGovernor.getInFlightLimit() - inFlightLoads.get();
+        if (permits <= 0) {
+            return;
+        }
+        
+        // Teleport destinations come first and do not count against the normal budget
+        int urgentBudget = Math.min(config.getUrgentChunksPerPass(), permits);
+        for (int i = 0; i < urgentBudget; i++) {
+            PrioritizedChunk urgentChunk = urgentQueue.poll();
+            if (urgentChunk == null) {
+                break;
+            }
+            if (!dispatchChunk(urgentChunk, false, config)) {
+                i--;
+            } else {
+                permits--;
+            }
+        }
+        
         // Process up to chunksToProcess chunks per tick
-        for (int i = 0; i < chunksToProcess && !chunkQueue.isEmpty(); i++) {
-            PrioritizedChunk prioritizedChunk = chunkQueue.poll();
-            if (prioritizedChunk == null) {
-                return;
+        int passSize = Math.min(chunksToProcess, permits);
+        if (passSize > 0) {
+            int viewDistance = platform.getViewDistance();
+            chunkQueue.drainPass(passSize, mode -> config.getProfile(mode).budgetFor(passSize),
+                chunk -> dispatchChunk(chunk, chunk.getRequest() == null && !isStillNeeded(chunk.getCoordinate(), viewDistance, config),
+                    config));
+        }
+    }
+    
+    /**
+     * Drop the least valuable queued chunks while the queue is above the memory governor's cap
+     * Without memory pressure only planned chunks count towards the cap, chunks of API and
+     * pregeneration requests are bounded by their own limits and are only shed under pressure
+     * @param config The configuration snapshot of this pass
+     */
+    private void shedOverCap(LoaderConfig config) {
+        int cap = memoryGovernor.getQueueCap();
+        if (chunkQueue.size() <= cap) {
+            return;
+        }
+        
+        boolean underPressure = memoryGovernor.isUnderPressure();
+        List<PrioritizedChunk> shed;
+        synchronized (queuedChunks) {
+            shed = chunkQueue.shed(cap, SHED_ORDER, queued -> underPressure || queued.getRequest() == null);
+            for (PrioritizedChunk queued : shed) {
+                queuedChunks.remove(queued.getCoordinate(), queued);
             }
-            
-            ChunkCoordinate coordinate = prioritizedChunk.getCoordinate();
+        }
+        if (shed.isEmpty()) {
+            return;
+        }
+        PreloadDroppedEvent.Reason reason = underPressure
+            ? PreloadDroppedEvent.Reason.MEMORY_PRESSURE : PreloadDroppedEvent.Reason.QUEUE_FULL;
+        for (PrioritizedChunk queued : shed) {
+            if (queued.getRequest() != null) {
+                queued.getRequest().chunkFailed(new RejectedExecutionException("Chunk shed under memory pressure"));
+            }
+            fireDropped(queued.getCoordinate(), reason);
+        }
+        if (config.isDebug()) {
+            debugLogger.info(() -> "Shed " + shed.size() + " queued chunks over the queue cap of " + cap
+                + (underPressure ? " under memory pressure (" + memoryGovernor.getState() + ")" : ""));
+        }
+    }
     
-            // Remove from tracking set
-            synchronized (queuedChunks) {
-                queuedChunks.remove(coordinate);
+    private static long deadlineOf(PrioritizedChunk chunk) {
+        return chunk.getDeadline() > 0 ? chunk.getDeadline() : Long.MAX_VALUE;
+    }
+    
+    /**
+     * Check whether a planned chunk is still worth loading when its turn comes
+     * Players may have turned away or flown off since it was planned, or walked so close
+     * that the chunk is inside their view distance and loaded by the server anyway
+     * @param coordinate The chunk
+     * @param viewDistance The server view distance
+     * @param config The configuration snapshot of this pass
+     * @return true if the chunk should still be loaded
+     */
+    private boolean isStillNeeded(ChunkCoordinate coordinate, int viewDistance, LoaderConfig config) {
+        if (!config.isStaleChunksEnabled()) {
+            return true;
+        }
+        int relevantRadius = viewDistance + config.getMaxFrontierDistance() + config.getStaleChunkMargin();
+        int nearest = playerIndex.nearestDistance(coordinate.getWorld().getName(), coordinate.getX(), coordinate.getZ(),
+            relevantRadius);
+        if (nearest == Integer.MAX_VALUE) {
+            return false;
+        }
+        return !config.isSkipChunksInView() || nearest > viewDistance;
+    }
+    
+    /**
+     * Start the asynchronous load of a chunk taken off one of the queues
+     * @param prioritizedChunk The chunk to load
+     * @param notNeeded Drop the chunk because no player needs it any more
+     * @param config The configuration snapshot of this pass
+     * @return false if the chunk was dropped instead of loaded
+     */
+    private boolean dispatchChunk(PrioritizedChunk prioritizedChunk, boolean notNeeded, LoaderConfig config) {
+        ChunkCoordinate coordinate = prioritizedChunk.getCoordinate();
+
+        // Remove from tracking set, unless another copy of the chunk took over the coordinate
+        synchronized (queuedChunks) {
+            queuedChunks.remove(coordinate, prioritizedChunk);
+        }
+        
+        if (notNeeded) {
+            fireDropped(coordinate, PreloadDroppedEvent.Reason.NOT_NEEDED);
+            return false;
+        }
+
+        // Drop API requests that were cancelled or missed their deadline while waiting
+        PreloadRequest request = prioritizedChunk.getRequest();
+        if (request != null) {
+            if (request.isCancelled()) {
+                fireDropped(coordinate, PreloadDroppedEvent.Reason.CANCELLED);
+                return false;
+            }
+            if (request.isExpired(platform.currentTimeMillis())) {
+                request.chunkExpired();
+                fireDropped(coordinate, PreloadDroppedEvent.Reason.DEADLINE_EXPIRED);
+                return false;
             }
+        }
+
+        LoaderWorld world = coordinate.getWorld();
+        if (world != null) {
+            final int x = coordinate.getX();
+            final int z = coordinate.getZ();
+            final long startTime = platform.currentTimeMillis();
+            inFlightLoads.incrementAndGet();
+            traceRecorder.record(TraceType.DISPATCH, world.getName(), x, z, prioritizedChunk.getPriority());
+            
+            // Update priority distribution stats
+            if (config.isExtraDetailedLogging()) {
+                loadStats.recordPriority(prioritizedChunk.getPriority());
+            }
+            
+            // Use native Paper async chunk loading
+            // Paper completes the future on the main thread, so the callback only frees the permit
+            // and hands the rest to the bookkeeping executor. One callback for both outcomes, so the
+            // permit is freed exactly once even if bookkeeping runs inline and throws
+            world.loadChunkAsync(x, z).whenComplete((chunk, ex) -> {
+                inFlightLoads.decrementAndGet();
+                if (ex == null) {
+                    long loadTime = platform.currentTimeMillis() - startTime;
+                    bookkeeping.execute(() -> onChunkPreloaded(prioritizedChunk, startTime, loadTime));
+                } else {
+                    bookkeeping.execute(() -> onChunkFailed(prioritizedChunk, ex));
+                }
+            });
+        }
+        return true;
+    }
     
-            World world = coordinate.getWorld();
-            if (world != null) {
-                final int x = coordinate.getX();
-                final int z = coordinate.getZ();
-                final long startTime = System.currentTimeMillis();
+    /**
+     * Record a completed preload and notify the request and listeners
+     * Runs on the bookkeeping executor
+     * @param prioritizedChunk The loaded chunk
+     * @param startTime When the load was dispatched
+     * @param loadTime How long the load took in milliseconds
+     */
+    private void onChunkPreloaded(PrioritizedChunk prioritizedChunk, long startTime, long loadTime) {
+        ChunkCoordinate coordinate = prioritizedChunk.getCoordinate();
+        LoaderWorld world = coordinate.getWorld();
+        int x = coordinate.getX();
+        int z = coordinate.getZ();
+        PreloadRequest request = prioritizedChunk.getRequest();
+        
+        // Update statistics
+        loadStats.recordLoaded(platform.currentTimeMillis(), loadTime);
                 
-                // Update priority distribution stats
-                if (enableExtraDetailedLogging) {
-                    int priority = prioritizedChunk.getPriority();
-                    priorityDistribution.merge(priority, 1, Integer::sum);
+        loadedCounter.increment();
+        worldLoadedCounter.increment(world.getName());
+        loadLatency.observe(loadTime / 1000.0);
+        recentlyPreloaded.put(coordinate, startTime);
+        traceRecorder.record(TraceType.COMPLETE, world.getName(), x, z, (int) loadTime);
+        
+        if (request != null) {
+            request.chunkLoaded();
+        }
+        platform.fireChunkPreloaded(world, x, z, prioritizedChunk.getPriority(), loadTime);
+        
+        if (platform.isEnabled() && config.isDebug()) {
+            debugLogger.info(() -> "Preloaded chunk at " + x + "," + z + " in " + world.getName() + 
+                        " (priority: " + prioritizedChunk.getPriority() + ", time: " + loadTime + "ms)");
+        }
+    }
+    
+    /**
+     * Record a failed preload and notify the request and listeners
+     * Runs on the bookkeeping executor
+     * @param prioritizedChunk The chunk that failed to load
+     * @param ex The failure
+     */
+    private void onChunkFailed(PrioritizedChunk prioritizedChunk, Throwable ex) {
+        ChunkCoordinate coordinate = prioritizedChunk.getCoordinate();
+        int x = coordinate.getX();
+        int z = coordinate.getZ();
+        traceRecorder.record(TraceType.FAIL, coordinate.getWorld().getName(), x, z, 0);
+        PreloadRequest request = prioritizedChunk.getRequest();
+        if (request != null) {
+            request.chunkFailed(ex);
+        }
+        fireDropped(coordinate, PreloadDroppedEvent.Reason.FAILED);
+        if (platform.isEnabled()) {
+            debugLogger.warning(() -> "Failed to load chunk at " + x + "," + z + ": " + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Queue chunks requested by another plugin through the API
+     * Safe to call from any thread
+     * @param world The world
+     * @param cells Chunk coordinates as {x, z} pairs, in the order they should be loaded
+     * @param priorityClass The priority class of the request
+     * @param deadlineMillis Milliseconds from now after which the loads are no longer useful, 0 for no deadline
+     * @return The request tracking the loads
+     */
+    PreloadRequest submitRequest(LoaderWorld world, List<int[]> cells, PriorityClass priorityClass, long deadlineMillis) {
+        long now = platform.currentTimeMillis();
+        long deadline = deadlineMillis > 0 ? now + deadlineMillis : 0;
+        PreloadRequest request = new PreloadRequest(this, cells.size(), deadline);
+        
+        synchronized (queuedChunks) {
+            List<ChunkCoordinate> coords = toCoordinates(world, cells);
+            withdrawPlanned(coords, LoadQueue.levelOf(priorityClass, priorityClass.getQueuePriority()));
+            for (ChunkCoordinate coord : coords) {
+                // Every chunk must report back to its request, so a chunk another request or a teleport
+                // already queued is queued again, the copy loading second finds it loaded
+                PrioritizedChunk prioritizedChunk = new PrioritizedChunk(coord, priorityClass.getQueuePriority(), priorityClass, null, null, request, now);
+                queuedChunks.putIfAbsent(coord, prioritizedChunk);
+                if (priorityClass == PriorityClass.URGENT) {
+                    urgentQueue.offer(prioritizedChunk);
+                } else {
+                    chunkQueue.offer(prioritizedChunk);
                 }
-                
-                // Use native Paper async chunk loading
-                world.getChunkAtAsync(x, z).thenAccept(chunk -> {
-                    // Update statistics
-                    totalChunksLoaded.incrementAndGet();
-                    chunksLoadedThisMinute.incrementAndGet();
-                    
-                    // Record load time
-                    long loadTime = System.currentTimeMillis() - startTime;
-                    chunkLoadTimes.put(x + "," + z, loadTime);
-                    
-                    if (plugin.isEnabled() && debug) {
-                        logger.info("Preloaded chunk at " + x + "," + z + " in " + world.getName() + 
-                                    " (priority: " + prioritizedChunk.getPriority() + ", time: " + loadTime + "ms)");
+            }
+        }
+        
+        if (config.isDebug()) {
+            debugLogger.info(() -> "Queued API request for " + cells.size() + " chunks in " + world.getName() + " (" + priorityClass + ")");
+        }
+        return request;
+    }
+    
+    /**
+     * Queue pregeneration work at the lowest priority class
+     * Every chunk gets its own request so the pregenerator can tell exactly which loads finished
+     * Must be called from the main thread
+     * @param world The world
+     * @param cells Chunk coordinates as {x, z} pairs, in the order they should be loaded
+     * @return One request per chunk, in the same order
+     */
+    List<PreloadRequest> submitPregen(LoaderWorld world, List<int[]> cells) {
+        int priority = PriorityClass.LOW.getQueuePriority();
+        long now = platform.currentTimeMillis();
+        List<PreloadRequest> requests = new ArrayList<>(cells.size());
+        synchronized (queuedChunks) {
+            for (ChunkCoordinate coord : toCoordinates(world, cells)) {
+                // The pregenerator withdraws its own requests when it pauses or halts
+                PreloadRequest request = new PreloadRequest(null, 1, 0);
+                PrioritizedChunk prioritizedChunk = new PrioritizedChunk(coord, priority, PriorityClass.LOW, null, null, request, now);
+                queuedChunks.putIfAbsent(coord, prioritizedChunk);
+                chunkQueue.offer(prioritizedChunk);
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+    
+    /**
+     * Take the queued chunks of API or pregeneration requests off the queue and the urgent lane,
+     * so a cancelled or failed request does not keep its chunks queued
+     * No drop events are fired for the withdrawn chunks
+     * Safe to call from any thread
+     * @param requests The requests
+     * @return The number of chunks taken off the queue
+     */
+    int withdrawRequests(Collection<PreloadRequest> requests) {
+        if (requests.isEmpty()) {
+            return 0;
+        }
+        Set<PreloadRequest> withdrawn = Collections.newSetFromMap(new IdentityHashMap<>());
+        withdrawn.addAll(requests);
+        synchronized (queuedChunks) {
+            Predicate<PrioritizedChunk> ofRequest = queued -> queued.getRequest() != null
+                && withdrawn.contains(queued.getRequest());
+            List<PrioritizedChunk> removed = new ArrayList<>(chunkQueue.removeIf(ofRequest));
+            for (Iterator<PrioritizedChunk> iterator = urgentQueue.iterator(); iterator.hasNext(); ) {
+                PrioritizedChunk queued = iterator.next();
+                if (ofRequest.test(queued)) {
+                    iterator.remove();
+                    removed.add(queued);
+                }
+            }
+            for (PrioritizedChunk queued : removed) {
+                queuedChunks.remove(queued.getCoordinate(), queued);
+            }
+            return removed.size();
+        }
+    }
+    
+    private static List<ChunkCoordinate> toCoordinates(LoaderWorld world, List<int[]> cells) {
+        List<ChunkCoordinate> coords = new ArrayList<>(cells.size());
+        for (int[] cell : cells) {
+            coords.add(new ChunkCoordinate(world, cell[0], cell[1]));
+        }
+        return coords;
+    }
+    
+    /**
+     * Take planned copies of chunks off the normal queue so they can be queued again with more urgency
+     * Copies in the urgent lane, copies of API requests and planned copies above the given queue level stay queued
+     * Must hold the queuedChunks lock
+     * @param coords The chunks
+     * @param level Queue level of the new copies
+     * @return The number of planned copies taken off the queue
+     */
+    private int withdrawPlanned(List<ChunkCoordinate> coords, int level) {
+        Set<PrioritizedChunk> planned = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ChunkCoordinate coord : coords) {
+            PrioritizedChunk existing = queuedChunks.get(coord);
+            if (existing != null && existing.getRequest() == null && LoadQueue.levelOf(existing) <= level) {
+                planned.add(existing);
+            }
+        }
+        if (planned.isEmpty()) {
+            return 0;
+        }
+        // Urgent destinations are not in the normal queue, so only planned copies are removed
+        List<PrioritizedChunk> withdrawn = chunkQueue.removeIf(planned::contains);
+        for (PrioritizedChunk queued : withdrawn) {
+            queuedChunks.remove(queued.getCoordinate(), queued);
+        }
+        return withdrawn.size();
+    }
+    
+    private void fireDropped(ChunkCoordinate coordinate, PreloadDroppedEvent.Reason reason) {
+        droppedCounter.increment(reason.name().toLowerCase());
+        traceRecorder.record(TraceType.DROP, coordinate.getWorld().getName(), coordinate.getX(), coordinate.getZ(), reason.ordinal());
+        platform.firePreloadDropped(coordinate.getWorld(), coordinate.getX(), coordinate.getZ(), reason);
+    }
+    
+    /**
+     * Push the chunks around a teleport or respawn destination into the urgent lane
+     * Other plugins (homes, warps) can call this ahead of a planned teleport so loading starts early
+     * Must be called from the main thread
+     * @param world The destination world
+     * @param centerX Chunk X of the destination
+     * @param centerZ Chunk Z of the destination
+     */
+    public void preloadDestination(LoaderWorld world, int centerX, int centerZ) {
+        LoaderConfig config = this.config;
+        if (!config.isTeleportPreloadEnabled()) {
+            return;
+        }
+        int teleportPreloadRadius = config.getTeleportPreloadRadius();
+        long now = platform.currentTimeMillis();
+        
+        // Walk outwards ring by ring so the landing chunk is loaded first
+        List<ChunkCoordinate> coords = new ArrayList<>();
+        List<Integer> priorities = new ArrayList<>();
+        for (int ring = 0; ring <= teleportPreloadRadius; ring++) {
+            int priority = teleportPreloadRadius + 1 - ring;
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) {
+                        continue;
                     }
-                }).exceptionally(ex -> {
-                    if (plugin.isEnabled()) {
-                        logger.warning("Failed to load chunk at " + x + "," + z + ": " + ex.getMessage());
+                    int x = centerX + dx;
+                    int z = centerZ + dz;
+                    if (loadedChunks.isLoaded(world.getUID(), x, z)) {
+                        continue;
                     }
-                    return null;
-                });
+                    coords.add(new ChunkCoordinate(world, x, z));
+                    priorities.add(priority);
+                }
+            }
+        }
+        
+        int queued = 0;
+        int upgraded;
+        synchronized (queuedChunks) {
+            // Chunks already planned for a player move to the urgent lane
+            upgraded = withdrawPlanned(coords, Integer.MAX_VALUE);
+            for (int i = 0; i < coords.size(); i++) {
+                ChunkCoordinate coord = coords.get(i);
+                // Already in the urgent lane (repeated teleports) or requested through the API
+                if (queuedChunks.containsKey(coord)) {
+                    continue;
+                }
+                PrioritizedChunk prioritizedChunk = new PrioritizedChunk(coord, priorities.get(i), PriorityClass.URGENT, MovementMode.WALKING, null, null, now);
+                queuedChunks.put(coord, prioritizedChunk);
+                urgentQueue.offer(prioritizedChunk);
+                queued++;
+            }
+        }
+        
+        if (config.isDebug() && queued > 0) {
+            logger.info("Queued " + queued + " urgent chunks (" + upgraded + " moved up from the queue) around "
+                + centerX + "," + centerZ + " in " + world.getName());
+        }
+    }
+    
+    /**
+     * Forget a player's prediction state after a teleport
+     * Movement history would otherwise see the jump as a huge velocity
+     * @param player The player
+     * @param dropFrontier Also drop the player's queued frontier (world change or long-distance teleport)
+     */
+    public void resetPlayerState(LoaderPlayer player, boolean dropFrontier) {
+        lastPlayerChunks.remove(player.getUniqueId());
+        playerMovementHistory.remove(player.getUniqueId());
+        playerGrid.remove(player.getUniqueId());
+        pendingGroupPlans.remove(player.getUniqueId());
+        railSegments.remove(player.getUniqueId());
+        
+        if (dropFrontier) {
+            UUID owner = player.getUniqueId();
+            List<PrioritizedChunk> dropped;
+            synchronized (queuedChunks) {
+                dropped = chunkQueue.removeIf(queued -> owner.equals(queued.getOwner()));
+                for (PrioritizedChunk queued : dropped) {
+                    queuedChunks.remove(queued.getCoordinate(), queued);
+                }
+            }
+            for (PrioritizedChunk queued : dropped) {
+                fireDropped(queued.getCoordinate(), PreloadDroppedEvent.Reason.FRONTIER_RESET);
+            }
+            if (config.isDebug() && !dropped.isEmpty()) {
+                logger.info("Dropped " + dropped.size() + " queued chunks for " + player.getName() + " after teleport");
             }
         }
     }
@@ -297,241 +824,355 @@ public class ChunkLoadManager {
      * Queue chunks for loading based on player's position, velocity, and facing direction
      * @param player The player to queue chunks for
      */
-    public void queueChunksForPlayer(Player player) {
-        World world = player.getWorld();
-        Chunk currentChunk = player.getLocation().getChunk();
-        ChunkCoordinate currentCoord = new ChunkCoordinate(world, currentChunk.getX(), currentChunk.getZ());
+    public void queueChunksForPlayer(LoaderPlayer player) {
+        LoaderWorld world = player.getWorld();
+        ChunkCoordinate currentCoord = new ChunkCoordinate(world, player.getChunkX(), player.getChunkZ());
         
         // Check if player has moved to a new chunk
-        ChunkCoordinate lastChunk = lastPlayerChunks.get(player);
+        ChunkCoordinate lastChunk = lastPlayerChunks.get(player.getUniqueId());
         if (lastChunk != null && lastChunk.equals(currentCoord)) {
             return;
         }
         
         // Update last chunk
-        lastPlayerChunks.put(player, currentCoord);
+        lastPlayerChunks.put(player.getUniqueId(), currentCoord);
+        playerIndex.update(player.getUniqueId(), world.getName(), currentCoord.getX(), currentCoord.getZ());
+        
+        // Did the player walk into a chunk we preloaded, or one we were still waiting on
+        if (recentlyPreloaded.remove(currentCoord) != null) {
+            frontierHits.increment();
+        } else if (queuedChunks.containsKey(currentCoord)) {
+            frontierLate.increment();
+        }
         
         // Get server's view distance
-        int viewDistance = plugin.getServer().getViewDistance();
+        int viewDistance = platform.getViewDistance();
         
         // Base position
-        int baseX = currentChunk.getX();
-        int baseZ = currentChunk.getZ();
+        int baseX = currentCoord.getX();
+        int baseZ = currentCoord.getZ();
+        
+        // Each way of travelling gets its own profile
+        MovementMode mode = player.getMode();
+        MovementProfile profile = config.getProfile(mode);
+        
+        // Minecarts follow the track, so trace the actual rail line instead of guessing a cone
+        UUID owner = player.getUniqueId();
+        if (mode == MovementMode.MINECART && profile.isRailTracing()) {
+            int railQueued = queueRailChunks(player, world, baseX, baseZ, viewDistance, profile);
+            if (railQueued >= 0) {
+                playerGrid.remove(owner);
+                fireFrontierPlanned(player, mode, railQueued);
+                return;
+            }
+        }
         
         // Determine direction and cone properties based on configuration
-        ConeProperties cone = calculateConeProperties(player);
+        FrontierPlanner.Cone cone = calculateCone(player, profile);
         
         // Log calculated cone properties if in debug mode
-        if (debug && enableExtraDetailedLogging) {
-            logger.info(String.format("Player %s: Cone direction (%.2f, %.2f), width: %d, maxDistance: %d",
-                player.getName(), cone.directionX, cone.directionZ, cone.width, cone.maxDistance));
+        if (config.isDebug() && config.isExtraDetailedLogging()) {
+            debugLogger.info(() -> String.format("Player %s (%s): Cone direction (%.2f, %.2f), width: %d, maxDistance: %d",
+                player.getName(), mode, cone.getDirectionX(), cone.getDirectionZ(), cone.getWidth(), cone.getMaxDistance()));
         }
         
-        // Queue chunks in the predicted direction using cone pattern
-        for (int distance = viewDistance + frontierMinDistance; distance <= viewDistance + cone.maxDistance; distance++) {
-            int distancePriority = frontierMaxDistance + 1 - (distance - viewDistance - frontierMinDistance);
-            
-            // Center position in the direction of movement
-            int centerX = baseX + (int)(cone.directionX * distance);
-            int centerZ = baseZ + (int)(cone.directionZ * distance);
-            
-            // Calculate cone width at this distance (wider as it goes further)
-            int actualWidth = cone.width + (distance - viewDistance - frontierMinDistance) / 2;
-            
-            // Load chunks in a cone pattern
-            for (int dx = -actualWidth; dx <= actualWidth; dx++) {
-                for (int dz = -actualWidth; dz <= actualWidth; dz++) {
-                    // Skip chunks outside the cone shape
-                    if (!isInCone(dx, dz, cone.directionX, cone.directionZ, actualWidth)) {
-                        continue;
-                    }
-                    
-                    int chunkX = centerX + dx;
-                    int chunkZ = centerZ + dz;
-                    
-                    // Calculate priority based on position in cone and distance
-                    int centerOffset = Math.abs(dx) + Math.abs(dz);
-                    int priority = calculatePriority(distancePriority, centerOffset, cone.speed);
-                    
-                    // Add to queue with calculated priority
-                    addToQueue(world, chunkX, chunkZ, priority);
-                }
-            }
+        // Players travelling with others are planned together with their group on the next tick
+        playerGrid.update(owner, world.getName(), baseX, baseZ, cone, mode);
+        if (config.isGroupFrontierEnabled()
+                && playerGrid.hasCompanions(owner, config.getGroupRadius(), config.getGroupMinHeadingCos())) {
+            scheduleGroupPlan(owner);
+            return;
         }
+        
+        // Queue chunks in the predicted direction using cone pattern
+        // Facing cones never change, so their cells come from the table built on reload
+        FrontierPlanner.CellConsumer consumer = (chunkX, chunkZ, priority) -> addToQueue(world, chunkX, chunkZ, priority, mode, owner);
+        FrontierPlanner.Stencil stencil = usesFacingCone(player)
+            ? config.getFacingStencil(mode, player.getFacing(), viewDistance) : null;
+        int queued = stencil != null ? stencil.apply(baseX, baseZ, consumer)
+            : config.getFrontierPlanner().plan(cone, profile, baseX, baseZ, viewDistance, consumer);
+        
+        fireFrontierPlanned(player, mode, queued);
     }
-      /**
-     * Check if a point (dx, dz) is within the cone defined by direction vector
-     * Optimized version using dot product calculations instead of acos for better performance
-     * @param dx X offset from center
-     * @param dz Z offset from center
-     * @param dirX X direction component
-     * @param dirZ Z direction component
-     * @param width Cone width
-     * @return true if the point is in the cone
+    
+    /**
+     * Mark a player's group for planning on the next tick, so members crossing chunks together are planned once
+     * @param playerId The player that moved
      */
-    private boolean isInCone(int dx, int dz, double dirX, double dirZ, int width) {
-        if (dx == 0 && dz == 0) {
-            return true; // Center of cone
+    private void scheduleGroupPlan(UUID playerId) {
+        pendingGroupPlans.add(playerId);
+        if (groupPlanTask == null) {
+            groupPlanTask = scheduler.runTask(() -> {
+                groupPlanTask = null;
+                planPendingGroups();
+            });
         }
-
-        // Vector from center of cone to chunk point
-        double pointX = dx;
-        double pointZ = dz;
-
-        // Dot product between direction vector and point vector
-        double dotProduct = pointX * dirX + pointZ * dirZ;
-
-        // If dot product < 0, point is behind the player
-        if (dotProduct < 0) {
-            return false;
+    }
+    
+    /**
+     * Plan one shared frontier for every group with a member that moved since the last tick
+     */
+    private void planPendingGroups() {
+        Set<UUID> planned = new HashSet<>();
+        for (UUID playerId : pendingGroupPlans) {
+            if (planned.contains(playerId)) {
+                continue;
+            }
+            List<PlayerGrid.Entry> members = playerGrid.cluster(playerId, config.getGroupRadius(),
+                config.getGroupMinHeadingCos(), config.getGroupMaxSize());
+            for (PlayerGrid.Entry member : members) {
+                planned.add(member.getPlayerId());
+            }
+            planGroupFrontier(playerId, members);
         }
-
-        // Compare squared distances to avoid Math.sqrt()
-        double pointDistSq = pointX * pointX + pointZ * pointZ;
-        double coneDistSq = dotProduct * dotProduct;
-
-        // Calculate cone width at this distance (squared)
-        // Using the configurable cone spread factor
-        double maxSpreadSq = coneSpreadFactor * width;
-
-        // Check if point is inside the cone "spread"
-        // pointDistSq - coneDistSq is squared perpendicular distance from point to direction line
-        return (pointDistSq - coneDistSq) < (coneDistSq * maxSpreadSq);
+        pendingGroupPlans.clear();
     }
     
     /**
-     * Calculate priority for a chunk based on various factors
-     * @param distancePriority Base priority based on distance from player
-     * @param centerOffset How far from center of the cone
-     * @param speed Player movement speed
-     * @return The calculated priority
+     * Queue the union of the group members' cones
+     * Only members that moved since their last plan are planned again, the others keep the cells planned
+     * at their current position. Only chunks in the cones of members that moved are queued, the others
+     * were queued when they moved, but every member's cone counts towards how many players a chunk serves
+     * @param playerId The member that started the planning
+     * @param members The group
      */
-    private int calculatePriority(int distancePriority, int centerOffset, double speed) {
-        // Higher priority for chunks:
-        // - closer to center of cone
-        // - closer to player
-        // - when player is moving faster
+    private void planGroupFrontier(UUID playerId, List<PlayerGrid.Entry> members) {
+        LoaderPlayer trigger = platform.getPlayer(playerId);
+        PlayerGrid.Entry triggerEntry = playerGrid.get(playerId);
+        if (trigger == null || triggerEntry == null) {
+            return;
+        }
+        LoaderWorld world = trigger.getWorld();
+        MovementMode mode = triggerEntry.getMode();
+        int viewDistance = platform.getViewDistance();
         
-        int centerFactor = Math.max(3 - centerOffset, 1);
-        int speedFactor = Math.min((int)(speed * speedInfluenceFactor), 3);
+        groupCells.clear();
+        for (int index = 0; index < members.size(); index++) {
+            PlayerGrid.Entry member = members.get(index);
+            if (!member.getWorld().equals(world.getName())) {
+                continue;
+            }
+            boolean moved = member.getPlannedCells() == null;
+            if (moved) {
+                planMember(member, viewDistance);
+            }
+            long[] keys = member.getPlannedCells();
+            int[] priorities = member.getPlannedPriorities();
+            for (int i = 0; i < keys.length; i++) {
+                groupCells.serve(keys[i], index, priorities[i], moved);
+            }
+        }
         
-        return distancePriority * 3 + centerFactor + speedFactor;
+        // Chunks ahead of several players are worth more than chunks ahead of one
+        int queued = 0;
+        for (int i = 0; i < groupCells.size(); i++) {
+            if (!groupCells.isSubmitted(i)) {
+                continue;
+            }
+            int players = groupCells.getPlayers(i);
+            int priority = groupCells.getPriority(i) + config.getGroupPriorityPerPlayer() * (players - 1);
+            // Shared chunks belong to nobody, so one member teleporting away does not drop them for the rest
+            UUID owner = players == 1 ? members.get(groupCells.getOwner(i)).getPlayerId() : null;
+            long key = groupCells.getKey(i);
+            if (addToQueue(world, (int) (key >> 32), (int) key, priority, mode, owner)) {
+                queued++;
+            }
+        }
+        
+        if (config.isDebug()) {
+            final int total = queued;
+            final int cells = groupCells.size();
+            debugLogger.info(() -> "Planned shared frontier for " + members.size() + " players around "
+                + trigger.getName() + " (" + mode + "), queued " + total + " of " + cells + " chunks");
+        }
+        fireFrontierPlanned(trigger, mode, queued);
     }
     
     /**
-     * Calculate cone properties based on player movement history and velocity
-     * @param player The player
-     * @return A ConeProperties object containing direction, width, and distance
+     * Plan a group member's cone from the position and cone recorded at its last chunk crossing
+     * and keep the cells on its grid entry
+     * @param member The member
+     * @param viewDistance The server view distance
      */
-    private ConeProperties calculateConeProperties(Player player) {
-        ConeProperties cone = new ConeProperties();
-        
-        // Default to player's facing direction if adaptive prediction is disabled
-        if (!adaptiveConePrediction) {
-            setDirectionFromFacing(player.getFacing(), cone);
-            cone.width = baseChunkWidth;
-            cone.maxDistance = frontierMaxDistance;
-            return cone;
+    private void planMember(PlayerGrid.Entry member, int viewDistance) {
+        groupPlan.clear();
+        config.getFrontierPlanner().plan(member.getCone(), config.getProfile(member.getMode()),
+            member.getChunkX(), member.getChunkZ(), viewDistance, (x, z, priority) -> {
+                groupPlan.add(((long) x << 32) | (z & 0xFFFFFFFFL), priority);
+                return true;
+            });
+        member.setPlan(groupPlan.copyKeys(), groupPlan.copyPriorities());
+    }
+    
+    private void fireFrontierPlanned(LoaderPlayer player, MovementMode mode, int queued) {
+        if (queued > 0) {
+            platform.fireFrontierPlanned(player, mode, queued);
         }
-        
-        // Try to predict movement from history
-        List<PlayerMovement> history = playerMovementHistory.get(player);
-        if (history == null || history.size() < 2) {
-            // Not enough history, use facing direction
-            setDirectionFromFacing(player.getFacing(), cone);
-            cone.width = baseChunkWidth;
-            cone.maxDistance = frontierMaxDistance;
-            return cone;
+    }
+    
+    /**
+     * Queue chunks along the rail line a minecart is riding on
+     * The rail is traced through loaded chunks, then extended in a straight line past the loaded edge
+     * @param player The player riding the minecart
+     * @param world The world
+     * @param baseX The player's chunk X
+     * @param baseZ The player's chunk Z
+     * @param viewDistance The server view distance
+     * @param profile The minecart movement profile
+     * @return The number of chunks queued, or -1 if the minecart is not on a rail and the cone should be used instead
+     */
+    private int queueRailChunks(LoaderPlayer player, LoaderWorld world, int baseX, int baseZ, int viewDistance,
+                                MovementProfile profile) {
+        // {x, y, z, velocityX, velocityZ} of the minecart
+        double[] cart = player.getVehicleMotion();
+        if (cart == null) {
+            return -1;
         }
+        int minDistance = viewDistance + profile.getFrontierMinDistance();
+        int maxDistance = viewDistance + profile.getFrontierMaxDistance();
         
-        // Calculate average velocity from history
-        Vector avgVelocity = new Vector(0, 0, 0);
-        PlayerMovement latest = history.get(history.size() - 1);
-        PlayerMovement oldest = history.get(0);
+        RailTracer.TraceResult trace = traceRail(player, world, cart, (maxDistance + 1) * 16 * 2);
+        if (trace == null) {
+            return -1;
+        }
         
-        // Only include horizontal movement
-        double dx = latest.x - oldest.x;
-        double dz = latest.z - oldest.z;
+        double speed = Math.sqrt(cart[3] * cart[3] + cart[4] * cart[4]) * 20.0;
+        int queued = 0;
         
-        // Consider recent instantaneous velocity too
-        Vector velocity = player.getVelocity();
+        // Chunks the traced rail passes through inside the frontier ring
+        for (int[] chunk : trace.getChunks()) {
+            int distance = Math.max(Math.abs(chunk[0] - baseX), Math.abs(chunk[1] - baseZ));
+            if (distance >= minDistance && distance <= maxDistance) {
+                queued += queueRailCell(player, world, chunk[0], chunk[1], distance, viewDistance, profile, speed, trace.getHeading());
+            }
+        }
         
-        // Calculate time difference in seconds
-        double timeDiff = (latest.timestamp - oldest.timestamp) / 1000.0;
-        if (timeDiff > 0) {
-            avgVelocity.setX(dx / timeDiff);
-            avgVelocity.setZ(dz / timeDiff);
+        if (config.isDebug() && config.isExtraDetailedLogging()) {
+            debugLogger.info(() -> String.format("Player %s: Rail traced through %d chunks, heading %s%s",
+                player.getName(), trace.getChunks().size(), trace.getHeading(), trace.isEndOfLine() ? ", end of line" : ""));
         }
         
-        // Combine historical average with current velocity (weighted)
-        avgVelocity.add(velocity.multiply(0.3));
+        if (trace.isEndOfLine()) {
+            return queued;
+        }
         
-        // Calculate speed in blocks/second (horizontal only)
-        double speed = Math.sqrt(avgVelocity.getX() * avgVelocity.getX() + avgVelocity.getZ() * avgVelocity.getZ());
+        // Extend past the edge of loaded terrain in the last known rail direction
+        int stepX = trace.getHeading().getModX();
+        int stepZ = trace.getHeading().getModZ();
+        int chunkX = trace.getEndBlockX() >> 4;
+        int chunkZ = trace.getEndBlockZ() >> 4;
+        while (true) {
+            chunkX += stepX;
+            chunkZ += stepZ;
+            int distance = Math.max(Math.abs(chunkX - baseX), Math.abs(chunkZ - baseZ));
+            if (distance > maxDistance) {
+                break;
+            }
+            if (distance >= minDistance) {
+                queued += queueRailCell(player, world, chunkX, chunkZ, distance, viewDistance, profile, speed, trace.getHeading());
+            }
+        }
+        return queued;
+    }
+    
+    /**
+     * Trace the rail under a minecart, reusing the rider's last trace while the cart is still on the traced segment
+     * Tracing reads blocks on the main thread, so it only runs again once the cart left the segment,
+     * turned around, or covered {@link #RAIL_RETRACE_CHUNKS} chunks of it and may see newly loaded track
+     * @param player The player riding the minecart
+     * @param world The world
+     * @param cart Position and velocity of the minecart, {x, y, z, velocityX, velocityZ}
+     * @param maxBlocks Maximum number of rail blocks to follow
+     * @return The trace, or null if the minecart is not on a rail
+     */
+    private RailTracer.TraceResult traceRail(LoaderPlayer player, LoaderWorld world, double[] cart, int maxBlocks) {
+        int blockX = (int) Math.floor(cart[0]);
+        int blockY = (int) Math.floor(cart[1]);
+        int blockZ = (int) Math.floor(cart[2]);
+        int chunkX = blockX >> 4;
+        int chunkZ = blockZ >> 4;
+        RailSegment segment = railSegments.get(player.getUniqueId());
+        if (segment != null && segment.world.equals(world)
+                && segment.velocityX * cart[3] + segment.velocityZ * cart[4] > 0) {
+            List<int[]> chunks = segment.trace.getChunks();
+            int last = segment.trace.isEndOfLine() ? chunks.size() - 1 : Math.min(chunks.size() - 1, RAIL_RETRACE_CHUNKS);
+            for (int i = segment.position; i <= last; i++) {
+                if (chunks.get(i)[0] == chunkX && chunks.get(i)[1] == chunkZ) {
+                    segment.position = i;
+                    return segment.trace;
+                }
+            }
+        }
         
-        // Set direction from velocity if it's significant, otherwise use facing
-        if (speed > 0.5) {
-            // Normalize to get direction vector
-            cone.directionX = avgVelocity.getX() / speed;
-            cone.directionZ = avgVelocity.getZ() / speed;
+        RailTracer.TraceResult trace = world.traceRail(blockX, blockY, blockZ, cart[3], cart[4], maxBlocks);
+        if (trace == null) {
+            railSegments.remove(player.getUniqueId());
         } else {
-            // Not moving fast enough, use facing direction
-            setDirectionFromFacing(player.getFacing(), cone);
+            railSegments.put(player.getUniqueId(), new RailSegment(world, trace, cart[3], cart[4]));
         }
+        return trace;
+    }
+    
+    /**
+     * Queue a chunk on a rail line plus the profile's width on either side of it
+     * @return The number of chunks newly queued
+     */
+    private int queueRailCell(LoaderPlayer player, LoaderWorld world, int chunkX, int chunkZ, int distance, int viewDistance,
+                               MovementProfile profile, double speed, BlockFace heading) {
+        FrontierPlanner frontierPlanner = config.getFrontierPlanner();
+        int distancePriority = frontierPlanner.distancePriority(distance, viewDistance, profile);
+        // Perpendicular to the direction of travel
+        int sideX = heading.getModZ();
+        int sideZ = heading.getModX();
+        int queued = 0;
+        for (int offset = -profile.getWidth(); offset <= profile.getWidth(); offset++) {
+            int priority = frontierPlanner.calculatePriority(distancePriority, Math.abs(offset), speed);
+            if (addToQueue(world, chunkX + sideX * offset, chunkZ + sideZ * offset, priority, MovementMode.MINECART,
+                    player.getUniqueId())) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+    /**
+     * Calculate cone properties based on player movement history and velocity
+     * @param player The player
+     * @param profile The profile of the player's current movement mode
+     * @return The cone containing direction, width, and distance
+     */
+    private FrontierPlanner.Cone calculateCone(LoaderPlayer player, MovementProfile profile) {
+        FrontierPlanner frontierPlanner = config.getFrontierPlanner();
+        double[] facing = LoaderConfig.facingVector(player.getFacing());
         
-        // Adjust cone width and distance based on speed
-        cone.width = baseChunkWidth + (int)(speed / 2);
-        cone.maxDistance = frontierMaxDistance + (int)(speed / 3);
-        cone.speed = speed;
+        // Default to player's facing direction if adaptive prediction is disabled or there is not enough history
+        if (usesFacingCone(player)) {
+            return frontierPlanner.facingCone(facing[0], facing[1], profile);
+        }
         
-        return cone;
+        List<PlayerMovement> history = playerMovementHistory.get(player.getUniqueId());
+        PlayerMovement latest = history.get(history.size() - 1);
+        PlayerMovement oldest = history.get(0);
+        
+        // Only include horizontal movement, plus the recent instantaneous velocity
+        return frontierPlanner.estimateCone(latest.x - oldest.x, latest.z - oldest.z,
+            (latest.timestamp - oldest.timestamp) / 1000.0, player.getVelocityX(), player.getVelocityZ(),
+            facing[0], facing[1], profile);
     }
     
     /**
-     * Set direction vector based on player's facing direction
-     * @param facing The player's BlockFace direction
-     * @param cone The cone properties to update
+     * Check whether a player's cone simply follows the facing direction
+     * @param player The player
+     * @return true if adaptive prediction is disabled or there is not enough movement history
      */
-    private void setDirectionFromFacing(BlockFace facing, ConeProperties cone) {
-        switch (facing) {
-            case NORTH:
-                cone.directionX = 0;
-                cone.directionZ = -1;
-                break;
-            case SOUTH:
-                cone.directionX = 0;
-                cone.directionZ = 1;
-                break;
-            case EAST:
-                cone.directionX = 1;
-                cone.directionZ = 0;
-                break;
-            case WEST:
-                cone.directionX = -1;
-                cone.directionZ = 0;
-                break;
-            case NORTH_EAST:
-                cone.directionX = 0.7071; // 1/sqrt(2)
-                cone.directionZ = -0.7071;
-                break;
-            case NORTH_WEST:
-                cone.directionX = -0.7071;
-                cone.directionZ = -0.7071;
-                break;
-            case SOUTH_EAST:
-                cone.directionX = 0.7071;
-                cone.directionZ = 0.7071;
-                break;
-            case SOUTH_WEST:
-                cone.directionX = -0.7071;
-                cone.directionZ = 0.7071;
-                break;
-            default:
-                cone.directionX = 0;
-                cone.directionZ = 0;
-                break;
+    private boolean usesFacingCone(LoaderPlayer player) {
+        if (!config.isAdaptiveConePrediction()) {
+            return true;
         }
-    }    // This method was removed as it was unused
+        List<PlayerMovement> history = playerMovementHistory.get(player.getUniqueId());
+        return history == null || history.size() < 2;
+    }
+    
+    // This method was removed as it was unused
     
     /**
      * Add a chunk to the loading queue with specified priority if not already queued
@@ -539,30 +1180,130 @@ public class ChunkLoadManager {
      * @param x The chunk X coordinate
      * @param z The chunk Z coordinate
      * @param priority Priority for loading (higher values = higher priority)
+     * @param mode Movement mode of the player the chunk is loaded for
+     * @param owner UUID of the player the chunk is loaded for
+     * @return true if the chunk was newly added to the queue
      */
-    private void addToQueue(World world, int x, int z, int priority) {
+    private boolean addToQueue(LoaderWorld world, int x, int z, int priority, MovementMode mode, UUID owner) {
         // Skip already loaded chunks to avoid unnecessary processing
-        if (world.isChunkLoaded(x, z)) {
-            return;
+        if (loadedChunks.isLoaded(world.getUID(), x, z)) {
+            return false;
+        }
+        
+        // Planned chunks stop queueing once the memory governor's cap is reached
+        if (chunkQueue.size() >= memoryGovernor.getQueueCap()) {
+            return false;
         }
         
         ChunkCoordinate coord = new ChunkCoordinate(world, x, z);
         
         synchronized (queuedChunks) {
-            if (!queuedChunks.contains(coord)) {
-                queuedChunks.add(coord);
-                PrioritizedChunk prioritizedChunk = new PrioritizedChunk(coord, priority);
+            if (!queuedChunks.containsKey(coord)) {
+                PrioritizedChunk prioritizedChunk = new PrioritizedChunk(coord, priority, PriorityClass.NORMAL, mode, owner, null,
+                    platform.currentTimeMillis());
+                queuedChunks.put(coord, prioritizedChunk);
                 chunkQueue.offer(prioritizedChunk);
                 
                 // Track priority distribution for stats
-                priorityDistribution.merge(priority, 1, Integer::sum);
+                loadStats.recordPriority(priority);
+                worldQueuedCounter.increment(world.getName());
+                traceRecorder.record(TraceType.ENQUEUE, world.getName(), x, z, priority);
                 
-                if (debug && enableExtraDetailedLogging) {
-                    logger.info(String.format("Added chunk %d,%d in %s to queue with priority %d", 
+                if (config.isDebug() && config.isExtraDetailedLogging()) {
+                    debugLogger.info(() -> String.format("Added chunk %d,%d in %s to queue with priority %d", 
                         x, z, world.getName(), priority));
                 }
+                return true;
             }
         }
+        return false;
+    }
+    
+    /**
+     * Get the trace recorder of the loading pipeline
+     * @return The trace recorder
+     */
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+    
+    /**
+     * Write the trace buffer to a new file in the plugin's traces folder
+     * The file is written on the bookkeeping executor, the callback runs on the main thread
+     * @param callback Receives a message describing the result
+     */
+    public void dumpTrace(Consumer<String> callback) {
+        File target = new File(new File(platform.getDataFolder(), "traces"), "trace-" + platform.currentTimeMillis() + ".csv");
+        bookkeeping.execute(() -> {
+            String message;
+            try {
+                int written = traceRecorder.dump(target.toPath());
+                message = "Wrote " + written + " trace records to " + target.getPath();
+            } catch (IOException e) {
+                message = "Failed to write trace file: " + e.getMessage();
+                logger.warning(message);
+            }
+            final String result = message;
+            if (platform.isEnabled()) {
+                scheduler.runTask(() -> callback.accept(result));
+            }
+        });
+    }
+    
+    /**
+     * Get the movement recorder
+     * @return The movement recorder
+     */
+    public MovementRecorder getMovementRecorder() {
+        return movementRecorder;
+    }
+    
+    /**
+     * Get the executor running the plugin's bookkeeping
+     * @return The bookkeeping executor
+     */
+    public BookkeepingExecutor getBookkeeping() {
+        return bookkeeping;
+    }
+    
+    /**
+     * Get the current configuration snapshot
+     * @return The configuration
+     */
+    LoaderConfig getConfig() {
+        return config;
+    }
+    
+    /**
+     * Get the pregenerator
+     * @return The pregenerator
+     */
+    public Pregenerator getPregenerator() {
+        return pregenerator;
+    }
+    
+    /**
+     * Get the bitmap of loaded chunks
+     * @return The loaded chunk bitmap
+     */
+    public LoadedChunkBitmap getLoadedChunks() {
+        return loadedChunks;
+    }
+    
+    /**
+     * Get the memory governor
+     * @return The memory governor
+     */
+    public MemoryGovernor getMemoryGovernor() {
+        return memoryGovernor;
+    }
+    
+    /**
+     * Get the registry holding the exported metrics
+     * @return The metrics registry
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
     }
     
     /**
@@ -570,7 +1311,7 @@ public class ChunkLoadManager {
      * @return The number of chunks in the queue
      */
     public int getQueueSize() {
-        return chunkQueue.size();
+        return chunkQueue.size() + urgentQueue.size();
     }
     
     /**
@@ -580,31 +1321,33 @@ public class ChunkLoadManager {
     public Map<String, Object> getPerformanceStats() {
         Map<String, Object> stats = new HashMap<>();
         
-        stats.put("totalChunksLoaded", totalChunksLoaded.get());
-        stats.put("chunksLoadedLastMinute", chunksLoadedThisMinute.get());
-        stats.put("currentQueueSize", chunkQueue.size());
-        
-        // Calculate average load time from recent chunks
-        if (!chunkLoadTimes.isEmpty()) {
-            double avgLoadTime = chunkLoadTimes.values().stream()
-                    .mapToLong(Long::longValue)
-                    .average()
-                    .orElse(0);
-            stats.put("averageLoadTimeMs", avgLoadTime);
-        } else {
-            stats.put("averageLoadTimeMs", 0.0);
-        }
+        // One snapshot so the numbers shown together were read together
+        LoadStats.Snapshot snapshot = loadStats.snapshot(platform.currentTimeMillis());
+        stats.put("totalChunksLoaded", snapshot.getTotalLoaded());
+        stats.put("chunksLoadedLastMinute", snapshot.getLoadedLastMinute());
+        stats.put("chunksLoadedLastHour", snapshot.getLoadedLastHour());
+        stats.put("currentQueueSize", chunkQueue.size() + urgentQueue.size());
+        stats.put("averageLoadTimeMs", snapshot.getAverageLoadTimeMs());
+        
+        // Memory governor state
+        stats.put("memoryState", memoryGovernor.getState().name());
+        stats.put("memoryOccupancy", memoryGovernor.getOccupancy());
+        stats.put("memoryThrottle", memoryGovernor.getThrottle());
+        stats.put("queueCap", memoryGovernor.getQueueCap());
+        stats.put("inFlightLimit", memoryGovernor.getInFlightLimit());
+        stats.put("inFlightLoads", inFlightLoads.get());
         
         // TPS information
-        double currentTps = plugin.getServer().getTPS()[0];
+        double currentTps = platform.getTps();
         stats.put("currentTps", currentTps);
         
         // Adaptive settings status
-        if (adaptiveTpsScaling) {
+        LoaderConfig config = this.config;
+        if (config.isAdaptiveTpsScaling()) {
             double tpsRatio = Math.min(currentTps / 20.0, 1.0);
-            int effectiveChunksPerTick = tpsRatio < (minTps / 20.0) 
-                ? Math.max(1, (int)(maxChunksPerTick * (tpsRatio * 0.8)))
-                : maxChunksPerTick;
+            int effectiveChunksPerTick = tpsRatio < (config.getMinTps() / 20.0) 
+                ? Math.max(1, (int)(config.getMaxChunksPerTick() * (tpsRatio * 0.8)))
+                : config.getMaxChunksPerTick();
             stats.put("effectiveChunksPerTick", effectiveChunksPerTick);
         }
         
@@ -616,11 +1359,15 @@ public class ChunkLoadManager {
      * Prevents memory leaks by removing player data from all maps
      * @param player The player who quit
      */
-    public void handlePlayerQuit(Player player) {
-        lastPlayerChunks.remove(player);
-        playerMovementHistory.remove(player);
+    public void handlePlayerQuit(LoaderPlayer player) {
+        lastPlayerChunks.remove(player.getUniqueId());
+        playerMovementHistory.remove(player.getUniqueId());
+        playerGrid.remove(player.getUniqueId());
+        pendingGroupPlans.remove(player.getUniqueId());
+        railSegments.remove(player.getUniqueId());
+        playerIndex.remove(player.getUniqueId());
         
-        if (debug) {
+        if (config.isDebug()) {
             logger.info("Cleaned up resources for player: " + player.getName());
         }
     }
@@ -629,17 +1376,17 @@ public class ChunkLoadManager {
      * Class to represent chunk coordinates with world reference
      */
     private static class ChunkCoordinate {
-        private final World world;
+        private final LoaderWorld world;
         private final int x;
         private final int z;
 
-        public ChunkCoordinate(World world, int x, int z) {
+        public ChunkCoordinate(LoaderWorld world, int x, int z) {
             this.world = world;
             this.x = x;
             this.z = z;
         }
 
-        public World getWorld() {
+        public LoaderWorld getWorld() {
             return world;
         }
 
@@ -675,59 +1422,272 @@ public class ChunkLoadManager {
     /**
      * Class to represent a chunk with loading priority
      */
-    private static class PrioritizedChunk {
+    private static class PrioritizedChunk implements LoadQueue.Entry {
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+        
         private final ChunkCoordinate coordinate;
         private final int priority; // Higher number = higher priority
+        private final PriorityClass priorityClass;
+        private final MovementMode mode;
+        private final UUID owner; // Player the chunk was queued for, null for urgent destinations and API requests
+        private final PreloadRequest request; // API request the chunk belongs to, null for planned chunks
         private final long timestamp;
+        private final long sequence; // Keeps insertion order among entries queued in the same millisecond
 
-        public PrioritizedChunk(ChunkCoordinate coordinate, int priority) {
+        public PrioritizedChunk(ChunkCoordinate coordinate, int priority, PriorityClass priorityClass, MovementMode mode,
+                                UUID owner, PreloadRequest request, long timestamp) {
             this.coordinate = coordinate;
             this.priority = priority;
-            this.timestamp = System.currentTimeMillis();
+            this.priorityClass = priorityClass;
+            this.mode = mode;
+            this.owner = owner;
+            this.request = request;
+            this.timestamp = timestamp;
+            this.sequence = SEQUENCE.getAndIncrement();
         }
 
         public ChunkCoordinate getCoordinate() {
             return coordinate;
         }
 
+        @Override
         public int getPriority() {
             return priority;
         }
 
+        @Override
+        public PriorityClass getPriorityClass() {
+            return priorityClass;
+        }
+
+        @Override
+        public MovementMode getMode() {
+            return mode;
+        }
+
+        public UUID getOwner() {
+            return owner;
+        }
+
+        public PreloadRequest getRequest() {
+            return request;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+
+        @Override
         public long getTimestamp() {
             return timestamp;
         }
+        
+        @Override
+        public long getDeadline() {
+            return request != null ? request.getDeadline() : 0;
+        }
+    }
+    
+    /**
+     * A chunk of a group's shared frontier
+     */
+    /**
+     * Cells of one member's planned cone, reused for every member
+     */
+    private static class CellList {
+        private long[] keys = new long[64];
+        private int[] priorities = new int[64];
+        private int size;
+
+        public void clear() {
+            size = 0;
+        }
+
+        public void add(long key, int priority) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+            keys[size] = key;
+            priorities[size] = priority;
+            size++;
+        }
+
+        public long[] copyKeys() {
+            return Arrays.copyOf(keys, size);
+        }
+
+        public int[] copyPriorities() {
+            return Arrays.copyOf(priorities, size);
+        }
+    }
+    
+    /**
+     * The union of a group's planned cells, an open addressing table keyed by chunk so
+     * counting the players each chunk serves does not box keys or allocate per plan
+     * Reused for every group, only used from the main thread
+     */
+    private static class GroupCells {
+        private long[] keys = new long[256];
+        // A slot is used when its stamp equals the current generation, so clearing is O(1)
+        private int[] stamps = new int[256];
+        private int[] priorities = new int[256];
+        private int[] players = new int[256];
+        private int[] owners = new int[256];
+        private int[] lastMembers = new int[256];
+        private boolean[] submit = new boolean[256];
+        // Used slots in insertion order
+        private int[] order = new int[128];
+        private int size;
+        private int generation = 1;
+
+        public void clear() {
+            size = 0;
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * Count a member whose cone covers a chunk, members are planned one after another
+         * so a repeat of the last member is the same cone visiting the chunk again
+         */
+        public void serve(long key, int member, int memberPriority, boolean moved) {
+            int slot = slotOf(key);
+            if (stamps[slot] != generation) {
+                // At most half the slots are used, so probe chains stay short
+                if (size == order.length) {
+                    grow();
+                    slot = slotOf(key);
+                }
+                stamps[slot] = generation;
+                keys[slot] = key;
+                priorities[slot] = memberPriority;
+                players[slot] = 1;
+                owners[slot] = member;
+                lastMembers[slot] = member;
+                submit[slot] = moved;
+                order[size++] = slot;
+                return;
+            }
+            if (lastMembers[slot] != member) {
+                players[slot]++;
+                lastMembers[slot] = member;
+            }
+            priorities[slot] = Math.max(priorities[slot], memberPriority);
+            submit[slot] |= moved;
+        }
+
+        private int slotOf(long key) {
+            int mask = keys.length - 1;
+            int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (stamps[slot] == generation && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldOrder = Arrays.copyOf(order, size);
+            long[] oldKeys = keys;
+            int[] oldPriorities = priorities;
+            int[] oldPlayers = players;
+            int[] oldOwners = owners;
+            int[] oldLastMembers = lastMembers;
+            boolean[] oldSubmit = submit;
+            int capacity = keys.length * 2;
+            keys = new long[capacity];
+            stamps = new int[capacity];
+            priorities = new int[capacity];
+            players = new int[capacity];
+            owners = new int[capacity];
+            lastMembers = new int[capacity];
+            submit = new boolean[capacity];
+            order = new int[capacity / 2];
+            for (int i = 0; i < oldOrder.length; i++) {
+                int from = oldOrder[i];
+                int slot = slotOf(oldKeys[from]);
+                stamps[slot] = generation;
+                keys[slot] = oldKeys[from];
+                priorities[slot] = oldPriorities[from];
+                players[slot] = oldPlayers[from];
+                owners[slot] = oldOwners[from];
+                lastMembers[slot] = oldLastMembers[from];
+                submit[slot] = oldSubmit[from];
+                order[i] = slot;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long getKey(int index) {
+            return keys[order[index]];
+        }
+
+        public int getPriority(int index) {
+            return priorities[order[index]];
+        }
+
+        public int getPlayers(int index) {
+            return players[order[index]];
+        }
+
+        /**
+         * @return Index of the first member serving the chunk
+         */
+        public int getOwner(int index) {
+            return owners[order[index]];
+        }
+
+        public boolean isSubmitted(int index) {
+            return submit[order[index]];
+        }
+    }
+    
+    /**
+     * The last rail trace of a minecart rider
+     */
+    private static class RailSegment {
+        private final LoaderWorld world;
+        private final RailTracer.TraceResult trace;
+        private final double velocityX;
+        private final double velocityZ;
+        private int position; // Index of the traced chunk the cart was last seen in
+
+        public RailSegment(LoaderWorld world, RailTracer.TraceResult trace, double velocityX, double velocityZ) {
+            this.world = world;
+            this.trace = trace;
+            this.velocityX = velocityX;
+            this.velocityZ = velocityZ;
+        }
     }
     
     /**
      * Class to represent player movement history
      */
     private static class PlayerMovement {
-        private final World world;
+        private final LoaderWorld world;
         private final double x;
         private final double y;
         private final double z;
-        private final Vector velocity;
+        private final double velocityX;
+        private final double velocityZ;
         private final long timestamp;
         
-        public PlayerMovement(World world, double x, double y, double z, Vector velocity, long timestamp) {
+        public PlayerMovement(LoaderWorld world, double x, double y, double z, double velocityX, double velocityZ,
+                              long timestamp) {
             this.world = world;
             this.x = x;
             this.y = y;
             this.z = z;
-            this.velocity = velocity.clone();
+            this.velocityX = velocityX;
+            this.velocityZ = velocityZ;
             this.timestamp = timestamp;
         }
     }
-    
-    /**
-     * Class to hold cone properties for chunk loading
-     */
-    private static class ConeProperties {
-        double directionX = 0;
-        double directionZ = 0;
-        int width = 1;
-        int maxDistance = 3;
-        double speed = 0;
-    }
 }
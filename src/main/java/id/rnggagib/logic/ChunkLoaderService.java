@@ -0,0 +1,74 @@
+package id.rnggagib.logic;
+
+import id.rnggagib.api.PreloadHandle;
+import id.rnggagib.api.PriorityClass;
+import id.rnggagib.api.ProactiveChunkLoaderAPI;
+import id.rnggagib.platform.BukkitWorld;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Implementation of the public API, registered with the Bukkit services manager
+ */
+public class ChunkLoaderService implements ProactiveChunkLoaderAPI {
+    // Keeps a single region request from flooding the queue
+    private static final int MAX_REGION_CHUNKS = 65536;
+
+    private final ChunkLoadManager chunkLoadManager;
+
+    public ChunkLoaderService(ChunkLoadManager chunkLoadManager) {
+        this.chunkLoadManager = chunkLoadManager;
+    }
+
+    @Override
+    public PreloadHandle requestChunk(World world, int chunkX, int chunkZ, PriorityClass priority, long deadlineMillis) {
+        List<int[]> cells = new ArrayList<>(1);
+        cells.add(new int[] {chunkX, chunkZ});
+        return chunkLoadManager.submitRequest(new BukkitWorld(world), cells, priority, deadlineMillis);
+    }
+
+    @Override
+    public PreloadHandle requestRegion(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                                       PriorityClass priority, long deadlineMillis) {
+        if (minChunkX > maxChunkX || minChunkZ > maxChunkZ) {
+            throw new IllegalArgumentException("Region minimum must not be greater than its maximum");
+        }
+        long area = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+        if (area > MAX_REGION_CHUNKS) {
+            throw new IllegalArgumentException("Region of " + area + " chunks exceeds the limit of " + MAX_REGION_CHUNKS);
+        }
+
+        List<int[]> cells = new ArrayList<>((int) area);
+        for (int x = minChunkX; x <= maxChunkX; x++) {
+            for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                cells.add(new int[] {x, z});
+            }
+        }
+
+        // Nearest to the center first, so partially loaded regions are usable
+        double centerX = (minChunkX + maxChunkX) / 2.0;
+        double centerZ = (minChunkZ + maxChunkZ) / 2.0;
+        cells.sort(Comparator.comparingDouble(cell ->
+            (cell[0] - centerX) * (cell[0] - centerX) + (cell[1] - centerZ) * (cell[1] - centerZ)));
+
+        return chunkLoadManager.submitRequest(new BukkitWorld(world), cells, priority, deadlineMillis);
+    }
+
+    @Override
+    public void announceTeleport(Location destination) {
+        if (destination == null || destination.getWorld() == null) {
+            return;
+        }
+        chunkLoadManager.preloadDestination(new BukkitWorld(destination.getWorld()),
+            destination.getBlockX() >> 4, destination.getBlockZ() >> 4);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return chunkLoadManager.getQueueSize();
+    }
+}
@@ -0,0 +1,308 @@
+package id.rnggagib.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans the loading frontier ahead of a moving player
+ * Works only on plain numbers so the same code runs in the plugin and in the offline simulator
+ */
+public class FrontierPlanner {
+    private final double speedInfluenceFactor;
+    private final double velocityInfluenceWeight;
+    private final double minimumSpeedForPrediction;
+
+    /**
+     * @param speedInfluenceFactor How much player speed influences chunk loading priority
+     * @param velocityInfluenceWeight How much the current velocity adds to the historical average
+     * @param minimumSpeedForPrediction Speed in blocks per second below which the facing direction is used
+     */
+    public FrontierPlanner(double speedInfluenceFactor, double velocityInfluenceWeight, double minimumSpeedForPrediction) {
+        this.speedInfluenceFactor = speedInfluenceFactor;
+        this.velocityInfluenceWeight = velocityInfluenceWeight;
+        this.minimumSpeedForPrediction = minimumSpeedForPrediction;
+    }
+
+    /**
+     * Build a cone that simply points where the player is facing
+     * @param facingX X component of the facing direction
+     * @param facingZ Z component of the facing direction
+     * @param profile The movement profile
+     * @return The cone
+     */
+    public Cone facingCone(double facingX, double facingZ, MovementProfile profile) {
+        Cone cone = new Cone();
+        cone.directionX = facingX;
+        cone.directionZ = facingZ;
+        cone.width = profile.getWidth();
+        cone.maxDistance = profile.getFrontierMaxDistance();
+        return cone;
+    }
+
+    /**
+     * Estimate the cone from recent movement history and the current velocity
+     * @param historyDx X distance covered over the movement history
+     * @param historyDz Z distance covered over the movement history
+     * @param historySeconds Time span of the movement history in seconds
+     * @param velocityX Current X velocity
+     * @param velocityZ Current Z velocity
+     * @param facingX X component of the facing direction, used when the player is barely moving
+     * @param facingZ Z component of the facing direction, used when the player is barely moving
+     * @param profile The movement profile
+     * @return The cone
+     */
+    public Cone estimateCone(double historyDx, double historyDz, double historySeconds,
+                             double velocityX, double velocityZ, double facingX, double facingZ,
+                             MovementProfile profile) {
+        Cone cone = new Cone();
+
+        // Calculate average velocity from history
+        double avgX = 0;
+        double avgZ = 0;
+        if (historySeconds > 0) {
+            avgX = historyDx / historySeconds;
+            avgZ = historyDz / historySeconds;
+        }
+
+        // Combine historical average with current velocity (weighted)
+        avgX += velocityX * velocityInfluenceWeight;
+        avgZ += velocityZ * velocityInfluenceWeight;
+
+        // Calculate speed in blocks/second (horizontal only)
+        double speed = Math.sqrt(avgX * avgX + avgZ * avgZ);
+
+        // Set direction from velocity if it's significant, otherwise use facing
+        if (speed > minimumSpeedForPrediction) {
+            // Normalize to get direction vector
+            cone.directionX = avgX / speed;
+            cone.directionZ = avgZ / speed;
+        } else {
+            // Not moving fast enough, use facing direction
+            cone.directionX = facingX;
+            cone.directionZ = facingZ;
+        }
+
+        // Adjust cone width and distance based on speed
+        cone.width = profile.getWidth() + (int)(speed / 2);
+        cone.maxDistance = profile.getFrontierMaxDistance() + (int)(speed / 3);
+        cone.speed = speed;
+
+        return cone;
+    }
+
+    /**
+     * Walk every chunk of the cone, nearest rows first, and hand it to the consumer
+     * @param cone The cone
+     * @param profile The movement profile
+     * @param baseX The player's chunk X
+     * @param baseZ The player's chunk Z
+     * @param viewDistance The server view distance
+     * @param consumer Receives each chunk with its priority
+     * @return The number of chunks the consumer accepted
+     */
+    public int plan(Cone cone, MovementProfile profile, int baseX, int baseZ, int viewDistance, CellConsumer consumer) {
+        int minDistance = profile.getFrontierMinDistance();
+        int accepted = 0;
+
+        // Queue chunks in the predicted direction using cone pattern
+        for (int distance = viewDistance + minDistance; distance <= viewDistance + cone.maxDistance; distance++) {
+            int distancePriority = distancePriority(distance, viewDistance, profile);
+
+            // Center position in the direction of movement
+            int centerX = baseX + (int)(cone.directionX * distance);
+            int centerZ = baseZ + (int)(cone.directionZ * distance);
+
+            // Calculate cone width at this distance (wider as it goes further)
+            int actualWidth = cone.width + (distance - viewDistance - minDistance) / 2;
+
+            // Load chunks in a cone pattern
+            for (int dx = -actualWidth; dx <= actualWidth; dx++) {
+                for (int dz = -actualWidth; dz <= actualWidth; dz++) {
+                    // Skip chunks outside the cone shape
+                    if (!isInCone(dx, dz, cone.directionX, cone.directionZ, actualWidth, profile.getConeSpreadFactor())) {
+                        continue;
+                    }
+
+                    // Calculate priority based on position in cone and distance
+                    int centerOffset = Math.abs(dx) + Math.abs(dz);
+                    int priority = calculatePriority(distancePriority, centerOffset, cone.speed);
+
+                    if (consumer.accept(centerX + dx, centerZ + dz, priority)) {
+                        accepted++;
+                    }
+                }
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Precompute the cells of a cone relative to the player's chunk
+     * Only worth it for cones that do not depend on speed, like the facing cones
+     * @param cone The cone
+     * @param profile The movement profile
+     * @param viewDistance The server view distance the stencil is valid for
+     * @return The stencil
+     */
+    public Stencil stencil(Cone cone, MovementProfile profile, int viewDistance) {
+        List<int[]> cells = new ArrayList<>();
+        plan(cone, profile, 0, 0, viewDistance, (x, z, priority) -> cells.add(new int[] {x, z, priority}));
+        int[] offsets = new int[cells.size() * 3];
+        for (int i = 0; i < cells.size(); i++) {
+            System.arraycopy(cells.get(i), 0, offsets, i * 3, 3);
+        }
+        return new Stencil(offsets, viewDistance);
+    }
+
+    /**
+     * Base priority of a ring of the frontier, the nearest ring gets the highest value
+     * @param distance Distance of the ring from the player in chunks
+     * @param viewDistance The server view distance
+     * @param profile The movement profile
+     * @return The distance priority
+     */
+    public int distancePriority(int distance, int viewDistance, MovementProfile profile) {
+        return profile.getFrontierMaxDistance() + 1 - (distance - viewDistance - profile.getFrontierMinDistance());
+    }
+
+    /**
+     * Calculate priority for a chunk based on various factors
+     * @param distancePriority Base priority based on distance from player
+     * @param centerOffset How far from center of the cone
+     * @param speed Player movement speed
+     * @return The calculated priority
+     */
+    public int calculatePriority(int distancePriority, int centerOffset, double speed) {
+        // Higher priority for chunks:
+        // - closer to center of cone
+        // - closer to player
+        // - when player is moving faster
+
+        int centerFactor = Math.max(3 - centerOffset, 1);
+        int speedFactor = Math.min((int)(speed * speedInfluenceFactor), 3);
+
+        return distancePriority * 3 + centerFactor + speedFactor;
+    }
+
+    /**
+     * Check if a point (dx, dz) is within the cone defined by direction vector
+     * Optimized version using dot product calculations instead of acos for better performance
+     * @param dx X offset from center
+     * @param dz Z offset from center
+     * @param dirX X direction component
+     * @param dirZ Z direction component
+     * @param width Cone width
+     * @param spreadFactor Cone spread factor of the movement profile
+     * @return true if the point is in the cone
+     */
+    static boolean isInCone(int dx, int dz, double dirX, double dirZ, int width, double spreadFactor) {
+        if (dx == 0 && dz == 0) {
+            return true; // Center of cone
+        }
+
+        // Vector from center of cone to chunk point
+        double pointX = dx;
+        double pointZ = dz;
+
+        // Dot product between direction vector and point vector
+        double dotProduct = pointX * dirX + pointZ * dirZ;
+
+        // If dot product < 0, point is behind the player
+        if (dotProduct < 0) {
+            return false;
+        }
+
+        // Compare squared distances to avoid Math.sqrt()
+        double pointDistSq = pointX * pointX + pointZ * pointZ;
+        double coneDistSq = dotProduct * dotProduct;
+
+        // Calculate cone width at this distance (squared)
+        // Using the configurable cone spread factor
+        double maxSpreadSq = spreadFactor * width;
+
+        // Check if point is inside the cone "spread"
+        // pointDistSq - coneDistSq is squared perpendicular distance from point to direction line
+        return (pointDistSq - coneDistSq) < (coneDistSq * maxSpreadSq);
+    }
+
+    /**
+     * Receives the chunks of a planned frontier
+     */
+    public interface CellConsumer {
+        /**
+         * @param x The chunk X coordinate
+         * @param z The chunk Z coordinate
+         * @param priority The loading priority (higher values = higher priority)
+         * @return true if the chunk was queued
+         */
+        boolean accept(int x, int z, int priority);
+    }
+
+    /**
+     * Cells of a planned cone relative to the player's chunk, in planning order
+     */
+    public static class Stencil {
+        private final int[] cells; // x, z, priority triples
+        private final int viewDistance;
+
+        private Stencil(int[] cells, int viewDistance) {
+            this.cells = cells;
+            this.viewDistance = viewDistance;
+        }
+
+        /**
+         * @return The view distance the stencil was built for
+         */
+        public int getViewDistance() {
+            return viewDistance;
+        }
+
+        /**
+         * Hand every cell of the stencil, moved to the player's chunk, to the consumer
+         * @param baseX The player's chunk X
+         * @param baseZ The player's chunk Z
+         * @param consumer Receives each chunk with its priority
+         * @return The number of chunks the consumer accepted
+         */
+        public int apply(int baseX, int baseZ, CellConsumer consumer) {
+            int accepted = 0;
+            for (int i = 0; i < cells.length; i += 3) {
+                if (consumer.accept(baseX + cells[i], baseZ + cells[i + 1], cells[i + 2])) {
+                    accepted++;
+                }
+            }
+            return accepted;
+        }
+    }
+
+    /**
+     * Class to hold cone properties for chunk loading
+     */
+    public static class Cone {
+        double directionX = 0;
+        double directionZ = 0;
+        int width = 1;
+        int maxDistance = 3;
+        double speed = 0;
+
+        public double getDirectionX() {
+            return directionX;
+        }
+
+        public double getDirectionZ() {
+            return directionZ;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getMaxDistance() {
+            return maxDistance;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package id.rnggagib.logic;
+
+import id.rnggagib.api.PriorityClass;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Priority queue of chunks waiting to be loaded, plus the rules for draining it each loader pass
+ * Shared by the plugin and the offline simulator so both schedule exactly the same way
+ * All methods are thread-safe
+ *
+ * Entries are kept in one FIFO bucket per priority level, so queueing and taking the next entry
+ * do not depend on the queue length. While an entry waits its effective priority rises by one level
+ * per aging interval, up to the maximum boost, so chunks at the edges of a cone are not starved by
+ * newer higher priority chunks that keep arriving. Entries with a deadline are boosted as it
+ * approaches, and once it has passed they get the full boost so they leave the queue promptly.
+ * Only the head of each bucket is compared, being the oldest it is the most aged one.
+ *
+ * Levels are split into one band per priority class. LOW entries share the bottom level, HIGH and URGENT
+ * entries get one level each at the top, and NORMAL entries, which includes every chunk planned for a player,
+ * spread over the levels in between by priority. Aging never lifts an entry past the top of its band,
+ * so waiting pregeneration never overtakes planned chunks and planned chunks never overtake HIGH requests.
+ * @param <E> The queue entry type
+ */
+public class LoadQueue<E extends LoadQueue.Entry> {
+    /**
+     * Number of priority levels
+     */
+    public static final int LEVELS = 512;
+
+    /**
+     * Lowest and highest priority of the NORMAL band, priorities outside it share the band's end levels
+     */
+    public static final int NORMAL_MIN_PRIORITY = -254;
+    public static final int NORMAL_MAX_PRIORITY = 254;
+
+    private static final int LOW_LEVEL = 0;
+    private static final int NORMAL_TOP_LEVEL = 1 + NORMAL_MAX_PRIORITY - NORMAL_MIN_PRIORITY;
+    private static final int HIGH_LEVEL = NORMAL_TOP_LEVEL + 1;
+    private static final int URGENT_LEVEL = HIGH_LEVEL + 1;
+
+    private final List<ArrayDeque<E>> levels = new ArrayList<>(LEVELS);
+    // One bit per level that has entries, to find the highest non-empty level quickly
+    private final long[] occupied = new long[LEVELS / 64];
+    private final LongSupplier clock;
+    private long agingMillis;
+    private int maxBoost;
+    private int size;
+
+    /**
+     * Queue without aging, on the system clock
+     */
+    public LoadQueue() {
+        this(System::currentTimeMillis, 0, 0);
+    }
+
+    /**
+     * @param clock Supplies the current time in milliseconds, on the same clock as the entry timestamps
+     * @param agingMillis Wait time per level of boost, 0 disables aging
+     * @param maxBoost Maximum number of levels an entry can be boosted
+     */
+    public LoadQueue(LongSupplier clock, long agingMillis, int maxBoost) {
+        this.clock = clock;
+        for (int i = 0; i < LEVELS; i++) {
+            levels.add(new ArrayDeque<>());
+        }
+        setAging(agingMillis, maxBoost);
+    }
+
+    /**
+     * Change how fast waiting entries gain priority, applies to entries already queued
+     * @param agingMillis Wait time per level of boost, 0 disables aging
+     * @param maxBoost Maximum number of levels an entry can be boosted
+     */
+    public synchronized void setAging(long agingMillis, int maxBoost) {
+        this.agingMillis = Math.max(0, agingMillis);
+        this.maxBoost = this.agingMillis > 0 ? Math.max(0, maxBoost) : 0;
+    }
+
+    /**
+     * Get the level an entry is queued at
+     * @param entry The entry
+     * @return The level, higher levels are taken first
+     */
+    public static int levelOf(Entry entry) {
+        return levelOf(entry.getPriorityClass(), entry.getPriority());
+    }
+
+    /**
+     * Get the level entries of a priority class and priority are queued at
+     * @param priorityClass The priority class
+     * @param priority The priority, only used to order NORMAL entries
+     * @return The level, higher levels are taken first
+     */
+    public static int levelOf(PriorityClass priorityClass, int priority) {
+        switch (priorityClass) {
+            case URGENT:
+                return URGENT_LEVEL;
+            case HIGH:
+                return HIGH_LEVEL;
+            case LOW:
+                return LOW_LEVEL;
+            default:
+                return 1 + Math.max(0, Math.min(NORMAL_TOP_LEVEL - 1, priority - NORMAL_MIN_PRIORITY));
+        }
+    }
+
+    /**
+     * Highest level aging can lift an entry of a band to
+     */
+    private static int topOfBand(int level) {
+        return level >= 1 && level <= NORMAL_TOP_LEVEL ? NORMAL_TOP_LEVEL : level;
+    }
+
+    public synchronized void offer(E entry) {
+        int level = levelOf(entry);
+        levels.get(level).addLast(entry);
+        occupied[level >>> 6] |= 1L << level;
+        size++;
+    }
+
+    public synchronized void addAll(Collection<E> entries) {
+        for (E entry : entries) {
+            offer(entry);
+        }
+    }
+
+    /**
+     * Put entries back in front of their level, keeping the place they had before they were taken
+     * @param entries The entries in the order they were taken
+     */
+    private synchronized void requeue(List<E> entries) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            E entry = entries.get(i);
+            int level = levelOf(entry);
+            levels.get(level).addFirst(entry);
+            occupied[level >>> 6] |= 1L << level;
+            size++;
+        }
+    }
+
+    /**
+     * Take the entry with the highest effective priority
+     * Ties go to the higher base priority
+     * @return The entry, or null if the queue is empty
+     */
+    public synchronized E poll() {
+        if (size == 0) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        int bestLevel = -1;
+        long bestPriority = Long.MIN_VALUE;
+        for (int level = highestOccupied(LEVELS - 1); level >= 0; level = highestOccupied(level - 1)) {
+            // Lower levels cannot catch up any more, even fully boosted
+            if (Math.min(topOfBand(level), level + maxBoost) <= bestPriority) {
+                break;
+            }
+            long effective = Math.min(topOfBand(level), level + boost(levels.get(level).peekFirst(), now));
+            if (effective > bestPriority) {
+                bestPriority = effective;
+                bestLevel = level;
+            }
+        }
+
+        ArrayDeque<E> bucket = levels.get(bestLevel);
+        E entry = bucket.pollFirst();
+        if (bucket.isEmpty()) {
+            occupied[bestLevel >>> 6] &= ~(1L << bestLevel);
+        }
+        size--;
+        return entry;
+    }
+
+    /**
+     * Levels gained by an entry through waiting or an approaching deadline
+     */
+    private int boost(Entry entry, long now) {
+        if (maxBoost == 0) {
+            return 0;
+        }
+        long boost = (now - entry.getTimestamp()) / agingMillis;
+        long deadline = entry.getDeadline();
+        if (deadline > 0) {
+            boost = Math.max(boost, maxBoost - (deadline - now) / agingMillis);
+        }
+        return (int) Math.max(0, Math.min(maxBoost, boost));
+    }
+
+    /**
+     * Find the highest level at or below the given one that has entries
+     * @return The level, or -1 if there is none
+     */
+    private int highestOccupied(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = occupied[word] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+            if (--word < 0) {
+                return -1;
+            }
+            bits = occupied[word];
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove every entry matching the filter
+     * @param filter Selects the entries to remove
+     * @return The removed entries
+     */
+    public synchronized List<E> removeIf(Predicate<E> filter) {
+        List<E> removed = new ArrayList<>();
+        for (int level = highestOccupied(LEVELS - 1); level >= 0; level = highestOccupied(level - 1)) {
+            ArrayDeque<E> bucket = levels.get(level);
+            Iterator<E> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                E entry = iterator.next();
+                if (filter.test(entry)) {
+                    iterator.remove();
+                    removed.add(entry);
+                }
+            }
+            if (bucket.isEmpty()) {
+                occupied[level >>> 6] &= ~(1L << level);
+            }
+        }
+        size -= removed.size();
+        return removed;
+    }
+
+    /**
+     * Remove the least valuable entries of a kind until at most a given number of them remain
+     * @param cap Number of matching entries allowed to stay
+     * @param order Orders the entries from least to most valuable
+     * @param counted Selects the entries that count towards the cap, others are never removed
+     * @return The removed entries
+     */
+    public synchronized List<E> shed(int cap, Comparator<? super E> order, Predicate<? super E> counted) {
+        if (size <= cap) {
+            return new ArrayList<>();
+        }
+        List<E> entries = new ArrayList<>();
+        for (ArrayDeque<E> bucket : levels) {
+            for (E entry : bucket) {
+                if (counted.test(entry)) {
+                    entries.add(entry);
+                }
+            }
+        }
+        if (entries.size() <= cap) {
+            return new ArrayList<>();
+        }
+        entries.sort(order);
+        List<E> removed = new ArrayList<>(entries.subList(0, entries.size() - Math.max(0, cap)));
+        Set<E> doomed = Collections.newSetFromMap(new IdentityHashMap<>());
+        doomed.addAll(removed);
+        removeIf(doomed::contains);
+        return removed;
+    }
+
+    /**
+     * Take entries off the queue for one loader pass
+     * Each movement mode may only use its share of the pass, entries over budget wait for the next pass
+     * The queue lock is not held while the dispatcher runs
+     * @param chunksToProcess Number of chunks to dispatch in this pass
+     * @param budgetFor Gives the number of chunks a movement mode may dispatch in this pass
+     * @param dispatcher Starts the load of an entry, returns false if the entry was dropped instead
+     * @return The number of chunks dispatched
+     */
+    public int drainPass(int chunksToProcess, ToIntFunction<MovementMode> budgetFor, Predicate<E> dispatcher) {
+        Map<MovementMode, Integer> modeBudgets = new EnumMap<>(MovementMode.class);
+        List<E> deferred = new ArrayList<>();
+        int maxPolls = chunksToProcess * 4;
+        int dispatched = 0;
+
+        for (int polls = 0; dispatched < chunksToProcess && polls < maxPolls; polls++) {
+            E entry = poll();
+            if (entry == null) {
+                break;
+            }
+
+            // Entries without a movement mode (API requests) are not limited by the mode budgets
+            MovementMode mode = entry.getMode();
+            if (mode != null) {
+                int budget = modeBudgets.computeIfAbsent(mode, budgetFor::applyAsInt);
+                if (budget <= 0) {
+                    deferred.add(entry);
+                    continue;
+                }
+                modeBudgets.put(mode, budget - 1);
+            }
+
+            if (dispatcher.test(entry)) {
+                dispatched++;
+            }
+        }
+
+        if (!deferred.isEmpty()) {
+            requeue(deferred);
+        }
+        return dispatched;
+    }
+
+    /**
+     * An entry of the load queue
+     */
+    public interface Entry {
+        /**
+         * @return The loading priority (higher values = higher priority)
+         */
+        int getPriority();
+
+        /**
+         * @return When the entry was queued, in milliseconds
+         */
+        long getTimestamp();
+
+        /**
+         * @return Tie-breaker keeping insertion order among entries queued in the same millisecond
+         */
+        long getSequence();
+
+        /**
+         * @return The movement mode the entry was planned for, null if it is not subject to mode budgets
+         */
+        MovementMode getMode();
+
+        /**
+         * @return When the entry stops being useful, in milliseconds, 0 if it has no deadline
+         */
+        default long getDeadline() {
+            return 0;
+        }
+
+        /**
+         * @return The band the entry is queued in, aging does not lift it past the band
+         */
+        default PriorityClass getPriorityClass() {
+            return PriorityClass.NORMAL;
+        }
+    }
+}
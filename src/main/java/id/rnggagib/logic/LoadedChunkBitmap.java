@@ -0,0 +1,123 @@
+package id.rnggagib.logic;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bitmap of the chunks each world currently has loaded, kept up to date from chunk load and unload events
+ * Lets the planner filter out loaded chunks with a bit test instead of asking the world for every cell
+ *
+ * Chunks are grouped into 32x32 regions with one 1024 bit set each, regions without loaded chunks are dropped.
+ * Writes must come from the main thread, where the chunk events fire. Reads are lock-free from any thread,
+ * off the main thread they may lag behind a load or unload that is happening at the same moment.
+ */
+public class LoadedChunkBitmap {
+    private static final int REGION_SHIFT = 5;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int WORDS_PER_REGION = (1 << (REGION_SHIFT * 2)) / 64;
+
+    private final Map<UUID, Map<Long, AtomicLongArray>> worlds = new ConcurrentHashMap<>();
+
+    private static long regionKey(int x, int z) {
+        return ((long) (x >> REGION_SHIFT) << 32) | ((z >> REGION_SHIFT) & 0xFFFFFFFFL);
+    }
+
+    private static int bitIndex(int x, int z) {
+        return (x & REGION_MASK) | ((z & REGION_MASK) << REGION_SHIFT);
+    }
+
+    /**
+     * Check whether a chunk is loaded
+     * @param worldId The world's UUID
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return true if the chunk is loaded
+     */
+    public boolean isLoaded(UUID worldId, int x, int z) {
+        Map<Long, AtomicLongArray> regions = worlds.get(worldId);
+        if (regions == null) {
+            return false;
+        }
+        AtomicLongArray bits = regions.get(regionKey(x, z));
+        if (bits == null) {
+            return false;
+        }
+        int index = bitIndex(x, z);
+        return (bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Mark a chunk as loaded, main thread only
+     * @param worldId The world's UUID
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     */
+    public void setLoaded(UUID worldId, int x, int z) {
+        Map<Long, AtomicLongArray> regions = worlds.computeIfAbsent(worldId, id -> new ConcurrentHashMap<>());
+        AtomicLongArray bits = regions.computeIfAbsent(regionKey(x, z), key -> new AtomicLongArray(WORDS_PER_REGION));
+        int index = bitIndex(x, z);
+        int word = index >>> 6;
+        bits.set(word, bits.get(word) | (1L << index));
+    }
+
+    /**
+     * Mark a chunk as unloaded, main thread only
+     * @param worldId The world's UUID
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     */
+    public void setUnloaded(UUID worldId, int x, int z) {
+        Map<Long, AtomicLongArray> regions = worlds.get(worldId);
+        if (regions == null) {
+            return;
+        }
+        long key = regionKey(x, z);
+        AtomicLongArray bits = regions.get(key);
+        if (bits == null) {
+            return;
+        }
+        int index = bitIndex(x, z);
+        int word = index >>> 6;
+        bits.set(word, bits.get(word) & ~(1L << index));
+        if (isEmpty(bits)) {
+            regions.remove(key);
+        }
+    }
+
+    private static boolean isEmpty(AtomicLongArray bits) {
+        for (int i = 0; i < WORDS_PER_REGION; i++) {
+            if (bits.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rebuild a world's bitmap from the chunks it has loaded right now, main thread only
+     * @param worldId The world's UUID
+     * @param loadedChunks The {x, z} coordinates of the loaded chunks
+     */
+    public void seed(UUID worldId, Collection<int[]> loadedChunks) {
+        Map<Long, AtomicLongArray> regions = new ConcurrentHashMap<>();
+        for (int[] chunk : loadedChunks) {
+            AtomicLongArray bits = regions.computeIfAbsent(regionKey(chunk[0], chunk[1]),
+                key -> new AtomicLongArray(WORDS_PER_REGION));
+            int index = bitIndex(chunk[0], chunk[1]);
+            int word = index >>> 6;
+            bits.set(word, bits.get(word) | (1L << index));
+        }
+        worlds.put(worldId, regions);
+    }
+
+    /**
+     * Forget a world, main thread only
+     * @param worldId The world's UUID
+     */
+    public void clear(UUID worldId) {
+        worlds.remove(worldId);
+    }
+}
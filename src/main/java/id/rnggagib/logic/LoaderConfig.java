@@ -0,0 +1,440 @@
+package id.rnggagib.logic;
+
+import org.bukkit.block.BlockFace;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, validated snapshot of the plugin configuration
+ * A new snapshot is built off the main thread on reload and published with a single volatile write,
+ * so the loader thread and the main thread never see a half-applied reload
+ */
+public final class LoaderConfig {
+    private static final BlockFace[] FACINGS = {
+        BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST,
+        BlockFace.NORTH_EAST, BlockFace.NORTH_WEST, BlockFace.SOUTH_EAST, BlockFace.SOUTH_WEST
+    };
+
+    private final List<String> warnings = new ArrayList<>();
+
+    private final int maxChunksPerTick;
+    private final int frontierMinDistance;
+    private final int frontierMaxDistance;
+    private final int baseChunkWidth;
+    private final boolean debug;
+    private final boolean adaptiveTpsScaling;
+    private final double minTps;
+    private final boolean adaptiveConePrediction;
+    private final int playerHistorySize;
+    private final double speedInfluenceFactor;
+    private final boolean extraDetailedLogging;
+    private final double coneSpreadFactor;
+    private final double velocityInfluenceWeight;
+    private final double minimumSpeedForPrediction;
+
+    private final boolean movementProfilesEnabled;
+    private final Map<MovementMode, MovementProfile> movementProfiles;
+    private final int maxFrontierDistance;
+
+    private final boolean teleportPreloadEnabled;
+    private final int teleportPreloadRadius;
+    private final int urgentChunksPerPass;
+
+    private final boolean groupFrontierEnabled;
+    private final int groupRadius;
+    private final double groupMinHeadingCos;
+    private final int groupPriorityPerPlayer;
+    private final int groupMaxSize;
+
+    private final long queueAgingMillis;
+    private final int queueMaxBoost;
+
+    private final boolean staleChunksEnabled;
+    private final int staleChunkMargin;
+    private final boolean skipChunksInView;
+
+    private final boolean traceEnabled;
+    private final int debugMessagesPerSecond;
+
+    private final boolean recorderEnabled;
+    private final String recorderDirectory;
+    private final long recorderRotateBytes;
+    private final long recorderMaxTotalBytes;
+
+    private final int pregenChunksPerPass;
+    private final int pregenMaxQueued;
+    private final boolean pregenPauseWhenPlayersOnline;
+    private final double pregenMaxMspt;
+    private final int pregenSaveIntervalSeconds;
+    private final int pregenReportIntervalSeconds;
+
+    private final boolean memoryGovernorEnabled;
+    private final double memoryHighThreshold;
+    private final double memoryCriticalThreshold;
+    private final int memoryQueueCap;
+    private final int memoryMaxInFlight;
+    private final double memoryRecoveryPerSecond;
+
+    // Derived tables
+    private final FrontierPlanner frontierPlanner;
+    private final Map<MovementMode, Map<BlockFace, FrontierPlanner.Stencil>> facingStencils;
+
+    /**
+     * Read and validate the configuration, out of range values are replaced and reported as warnings
+     * Does not touch the server, so it can run on any thread
+     * @param config The configuration root
+     * @param viewDistance The server view distance the precomputed stencils are built for
+     */
+    public LoaderConfig(ConfigurationSection config, int viewDistance) {
+        maxChunksPerTick = intAtLeast(config, "max-chunks-per-tick", 1, 1);
+        frontierMinDistance = intAtLeast(config, "frontier-distance.min", 1, 0);
+        frontierMaxDistance = intAtLeast(config, "frontier-distance.max", 3, frontierMinDistance);
+        baseChunkWidth = intAtLeast(config, "frontier-width", 1, 0);
+        debug = config.getBoolean("debug", false);
+
+        adaptiveTpsScaling = config.getBoolean("performance.adaptive-tps-scaling", true);
+        minTps = doubleBetween(config, "performance.minimum-tps", 18.0, 1.0, 20.0);
+        adaptiveConePrediction = config.getBoolean("advanced.adaptive-cone-prediction", true);
+        playerHistorySize = intAtLeast(config, "advanced.player-history-size", 10, 2);
+        speedInfluenceFactor = doubleBetween(config, "advanced.speed-influence-factor", 1.0, 0.0, 10.0);
+        extraDetailedLogging = config.getBoolean("advanced.extra-detailed-logging", false);
+        coneSpreadFactor = doubleBetween(config, "advanced.cone-spread-factor", 0.4, 0.0, 10.0);
+        velocityInfluenceWeight = doubleBetween(config, "advanced.velocity-influence-weight", 0.3, 0.0, 1.0);
+        minimumSpeedForPrediction = doubleBetween(config, "advanced.minimum-speed-for-prediction", 0.5, 0.0, 100.0);
+
+        teleportPreloadEnabled = config.getBoolean("teleport-preload.enabled", true);
+        teleportPreloadRadius = intAtLeast(config, "teleport-preload.radius", 2, 0);
+        urgentChunksPerPass = intAtLeast(config, "teleport-preload.max-chunks-per-pass", 8, 1);
+
+        groupFrontierEnabled = config.getBoolean("group-frontier.enabled", true);
+        groupRadius = intAtLeast(config, "group-frontier.radius", 4, 1);
+        groupMinHeadingCos = Math.cos(Math.toRadians(
+            doubleBetween(config, "group-frontier.max-heading-difference", 30.0, 0.0, 180.0)));
+        groupPriorityPerPlayer = intAtLeast(config, "group-frontier.priority-per-player", 2, 0);
+        groupMaxSize = intAtLeast(config, "group-frontier.max-group-size", 32, 2);
+
+        queueAgingMillis = intAtLeast(config, "queue-aging.interval-ms", 500, 0);
+        queueMaxBoost = intAtLeast(config, "queue-aging.max-boost", 16, 0);
+
+        staleChunksEnabled = config.getBoolean("stale-chunks.enabled", true);
+        staleChunkMargin = intAtLeast(config, "stale-chunks.margin", 16, 0);
+        skipChunksInView = config.getBoolean("stale-chunks.skip-in-view", true);
+
+        traceEnabled = config.getBoolean("trace.enabled", true);
+        debugMessagesPerSecond = intAtLeast(config, "trace.debug-messages-per-second", 20, 1);
+
+        recorderEnabled = config.getBoolean("recorder.enabled", false);
+        recorderDirectory = config.getString("recorder.directory", "recordings");
+        recorderRotateBytes = intAtLeast(config, "recorder.rotate-size-mb", 16, 1) * 1024L * 1024L;
+        recorderMaxTotalBytes = Math.max(recorderRotateBytes,
+            intAtLeast(config, "recorder.max-total-size-mb", 256, 1) * 1024L * 1024L);
+
+        pregenChunksPerPass = intAtLeast(config, "pregen.chunks-per-pass", 16, 1);
+        pregenMaxQueued = intAtLeast(config, "pregen.max-queued", 256, 1);
+        pregenPauseWhenPlayersOnline = config.getBoolean("pregen.pause-when-players-online", true);
+        pregenMaxMspt = doubleBetween(config, "pregen.max-mspt", 40.0, 1.0, 1000.0);
+        pregenSaveIntervalSeconds = intAtLeast(config, "pregen.save-interval-seconds", 30, 1);
+        pregenReportIntervalSeconds = intAtLeast(config, "pregen.report-interval-seconds", 60, 1);
+
+        memoryGovernorEnabled = config.getBoolean("memory-governor.enabled", true);
+        memoryHighThreshold = doubleBetween(config, "memory-governor.high-threshold", 0.80, 0.1, 1.0);
+        memoryCriticalThreshold = doubleBetween(config, "memory-governor.critical-threshold", 0.92, memoryHighThreshold, 1.0);
+        memoryQueueCap = intAtLeast(config, "memory-governor.queue-cap", 4096, 1);
+        memoryMaxInFlight = intAtLeast(config, "memory-governor.max-in-flight", 64, 1);
+        memoryRecoveryPerSecond = doubleBetween(config, "memory-governor.recovery-per-second", 0.05, 0.001, 1.0);
+
+        // Movement profiles, missing keys fall back to the walking profile, which itself falls back to the global settings
+        movementProfilesEnabled = config.getBoolean("movement-profiles.enabled", true);
+        ConfigurationSection section = config.getConfigurationSection("movement-profiles");
+        MovementProfile global = new MovementProfile(MovementMode.WALKING, frontierMinDistance, frontierMaxDistance,
+            baseChunkWidth, coneSpreadFactor, 1.0, false);
+        MovementProfile walking = MovementProfile.fromConfig(MovementMode.WALKING,
+            section != null ? section.getConfigurationSection(MovementMode.WALKING.getConfigKey()) : null, global);
+
+        Map<MovementMode, MovementProfile> profiles = new EnumMap<>(MovementMode.class);
+        int maxDistance = 0;
+        for (MovementMode mode : MovementMode.values()) {
+            MovementProfile profile;
+            if (mode == MovementMode.WALKING || !movementProfilesEnabled) {
+                profile = movementProfilesEnabled ? walking : global;
+            } else {
+                ConfigurationSection modeSection = section != null ? section.getConfigurationSection(mode.getConfigKey()) : null;
+                profile = MovementProfile.fromConfig(mode, modeSection, walking);
+            }
+            profiles.put(mode, profile);
+            maxDistance = Math.max(maxDistance, profile.getFrontierMaxDistance());
+        }
+        movementProfiles = Collections.unmodifiableMap(profiles);
+        maxFrontierDistance = maxDistance;
+
+        // Facing cones do not depend on speed, so their cells are computed once per profile and direction
+        frontierPlanner = new FrontierPlanner(speedInfluenceFactor, velocityInfluenceWeight, minimumSpeedForPrediction);
+        Map<MovementMode, Map<BlockFace, FrontierPlanner.Stencil>> stencils = new EnumMap<>(MovementMode.class);
+        for (Map.Entry<MovementMode, MovementProfile> entry : movementProfiles.entrySet()) {
+            Map<BlockFace, FrontierPlanner.Stencil> byFacing = new EnumMap<>(BlockFace.class);
+            for (BlockFace facing : FACINGS) {
+                double[] direction = facingVector(facing);
+                byFacing.put(facing, frontierPlanner.stencil(
+                    frontierPlanner.facingCone(direction[0], direction[1], entry.getValue()), entry.getValue(), viewDistance));
+            }
+            stencils.put(entry.getKey(), byFacing);
+        }
+        facingStencils = stencils;
+    }
+
+    private int intAtLeast(ConfigurationSection config, String path, int def, int min) {
+        int value = config.getInt(path, def);
+        if (value < min) {
+            warnings.add(path + " must be at least " + min + ", using " + min);
+            return min;
+        }
+        return value;
+    }
+
+    private double doubleBetween(ConfigurationSection config, String path, double def, double min, double max) {
+        double value = config.getDouble(path, def);
+        if (value < min || value > max || Double.isNaN(value)) {
+            double clamped = Double.isNaN(value) ? def : Math.max(min, Math.min(max, value));
+            warnings.add(path + " must be between " + min + " and " + max + ", using " + clamped);
+            return clamped;
+        }
+        return value;
+    }
+
+    /**
+     * Get the direction vector of a player's facing direction
+     * @param facing The player's BlockFace direction
+     * @return The {x, z} direction vector
+     */
+    public static double[] facingVector(BlockFace facing) {
+        switch (facing) {
+            case NORTH:
+                return new double[] {0, -1};
+            case SOUTH:
+                return new double[] {0, 1};
+            case EAST:
+                return new double[] {1, 0};
+            case WEST:
+                return new double[] {-1, 0};
+            case NORTH_EAST:
+                return new double[] {0.7071, -0.7071}; // 1/sqrt(2)
+            case NORTH_WEST:
+                return new double[] {-0.7071, -0.7071};
+            case SOUTH_EAST:
+                return new double[] {0.7071, 0.7071};
+            case SOUTH_WEST:
+                return new double[] {-0.7071, 0.7071};
+            default:
+                return new double[] {0, 0};
+        }
+    }
+
+    /**
+     * @return Problems found while validating, each naming the setting and the value used instead
+     */
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    public int getMaxChunksPerTick() {
+        return maxChunksPerTick;
+    }
+
+    public int getFrontierMinDistance() {
+        return frontierMinDistance;
+    }
+
+    public int getFrontierMaxDistance() {
+        return frontierMaxDistance;
+    }
+
+    public int getBaseChunkWidth() {
+        return baseChunkWidth;
+    }
+
+    public boolean isDebug() {
+        return debug;
+    }
+
+    public boolean isAdaptiveTpsScaling() {
+        return adaptiveTpsScaling;
+    }
+
+    public double getMinTps() {
+        return minTps;
+    }
+
+    public boolean isAdaptiveConePrediction() {
+        return adaptiveConePrediction;
+    }
+
+    public int getPlayerHistorySize() {
+        return playerHistorySize;
+    }
+
+    public boolean isExtraDetailedLogging() {
+        return extraDetailedLogging;
+    }
+
+    public MovementProfile getProfile(MovementMode mode) {
+        return movementProfiles.get(mode);
+    }
+
+    /**
+     * @return The largest frontier distance of any movement profile
+     */
+    public int getMaxFrontierDistance() {
+        return maxFrontierDistance;
+    }
+
+    public boolean isTeleportPreloadEnabled() {
+        return teleportPreloadEnabled;
+    }
+
+    public int getTeleportPreloadRadius() {
+        return teleportPreloadRadius;
+    }
+
+    public int getUrgentChunksPerPass() {
+        return urgentChunksPerPass;
+    }
+
+    public boolean isGroupFrontierEnabled() {
+        return groupFrontierEnabled;
+    }
+
+    public int getGroupRadius() {
+        return groupRadius;
+    }
+
+    public double getGroupMinHeadingCos() {
+        return groupMinHeadingCos;
+    }
+
+    public int getGroupPriorityPerPlayer() {
+        return groupPriorityPerPlayer;
+    }
+
+    public int getGroupMaxSize() {
+        return groupMaxSize;
+    }
+
+    /**
+     * @return Wait time per level of queue priority boost, 0 if aging is disabled
+     */
+    public long getQueueAgingMillis() {
+        return queueAgingMillis;
+    }
+
+    public int getQueueMaxBoost() {
+        return queueMaxBoost;
+    }
+
+    public boolean isStaleChunksEnabled() {
+        return staleChunksEnabled;
+    }
+
+    public int getStaleChunkMargin() {
+        return staleChunkMargin;
+    }
+
+    public boolean isSkipChunksInView() {
+        return skipChunksInView;
+    }
+
+    public boolean isTraceEnabled() {
+        return traceEnabled;
+    }
+
+    public int getDebugMessagesPerSecond() {
+        return debugMessagesPerSecond;
+    }
+
+    public boolean isRecorderEnabled() {
+        return recorderEnabled;
+    }
+
+    public String getRecorderDirectory() {
+        return recorderDirectory;
+    }
+
+    public long getRecorderRotateBytes() {
+        return recorderRotateBytes;
+    }
+
+    public long getRecorderMaxTotalBytes() {
+        return recorderMaxTotalBytes;
+    }
+
+    public int getPregenChunksPerPass() {
+        return pregenChunksPerPass;
+    }
+
+    public int getPregenMaxQueued() {
+        return pregenMaxQueued;
+    }
+
+    public boolean isPregenPauseWhenPlayersOnline() {
+        return pregenPauseWhenPlayersOnline;
+    }
+
+    /**
+     * @return Average milliseconds per tick above which pregeneration pauses
+     */
+    public double getPregenMaxMspt() {
+        return pregenMaxMspt;
+    }
+
+    public int getPregenSaveIntervalSeconds() {
+        return pregenSaveIntervalSeconds;
+    }
+
+    public int getPregenReportIntervalSeconds() {
+        return pregenReportIntervalSeconds;
+    }
+
+    public boolean isMemoryGovernorEnabled() {
+        return memoryGovernorEnabled;
+    }
+
+    public double getMemoryHighThreshold() {
+        return memoryHighThreshold;
+    }
+
+    public double getMemoryCriticalThreshold() {
+        return memoryCriticalThreshold;
+    }
+
+    public int getMemoryQueueCap() {
+        return memoryQueueCap;
+    }
+
+    public int getMemoryMaxInFlight() {
+        return memoryMaxInFlight;
+    }
+
+    public double getMemoryRecoveryPerSecond() {
+        return memoryRecoveryPerSecond;
+    }
+
+    public FrontierPlanner getFrontierPlanner() {
+        return frontierPlanner;
+    }
+
+    /**
+     * Get the precomputed cells of a facing cone
+     * @param mode The movement mode
+     * @param facing The player's facing direction
+     * @param viewDistance The current server view distance
+     * @return The stencil, or null if none matches and the cone has to be planned
+     */
+    public FrontierPlanner.Stencil getFacingStencil(MovementMode mode, BlockFace facing, int viewDistance) {
+        FrontierPlanner.Stencil stencil = facingStencils.get(mode).get(facing);
+        return stencil != null && stencil.getViewDistance() == viewDistance ? stencil : null;
+    }
+}
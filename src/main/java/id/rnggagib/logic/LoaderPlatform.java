@@ -0,0 +1,94 @@
+package id.rnggagib.logic;
+
+import id.rnggagib.api.event.PreloadDroppedEvent;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Everything the loader needs from the server: clock, scheduler, players, worlds and events
+ * The plugin runs on the Bukkit implementation, the simulator on a fake one with its own clock
+ */
+public interface LoaderPlatform {
+
+    Logger getLogger();
+
+    /**
+     * @return The plugin configuration root
+     */
+    ConfigurationSection getConfig();
+
+    /**
+     * Write the default config.yml if there is none yet
+     */
+    void saveDefaultConfig();
+
+    File getDataFolder();
+
+    /**
+     * @return false once the plugin is being disabled
+     */
+    boolean isEnabled();
+
+    /**
+     * @return The current time in milliseconds, every timestamp of the loader comes from here
+     */
+    long currentTimeMillis();
+
+    LoaderScheduler getScheduler();
+
+    int getViewDistance();
+
+    /**
+     * @return The server TPS over the last minute
+     */
+    double getTps();
+
+    /**
+     * @return The average tick time in milliseconds
+     */
+    double getAverageTickTime();
+
+    /**
+     * Get the online players, main thread only
+     * @return The players
+     */
+    Collection<? extends LoaderPlayer> getOnlinePlayers();
+
+    /**
+     * Get an online player, main thread only
+     * @param playerId The player's UUID
+     * @return The player, or null if not online
+     */
+    LoaderPlayer getPlayer(UUID playerId);
+
+    List<? extends LoaderWorld> getWorlds();
+
+    /**
+     * @param name The world name
+     * @return The world, or null if not loaded
+     */
+    LoaderWorld getWorld(String name);
+
+    /**
+     * Tell other plugins that a chunk was preloaded
+     * @see id.rnggagib.api.event.ChunkPreloadedEvent
+     */
+    void fireChunkPreloaded(LoaderWorld world, int x, int z, int priority, long loadTimeMs);
+
+    /**
+     * Tell other plugins that a queued chunk was dropped
+     * @see PreloadDroppedEvent
+     */
+    void firePreloadDropped(LoaderWorld world, int x, int z, PreloadDroppedEvent.Reason reason);
+
+    /**
+     * Tell other plugins that a player's frontier was planned
+     * @see id.rnggagib.api.event.FrontierPlannedEvent
+     */
+    void fireFrontierPlanned(LoaderPlayer player, MovementMode mode, int queuedChunks);
+}
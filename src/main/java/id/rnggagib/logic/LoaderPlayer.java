@@ -0,0 +1,52 @@
+package id.rnggagib.logic;
+
+import org.bukkit.block.BlockFace;
+
+import java.util.UUID;
+
+/**
+ * The parts of an online player the loader uses, read on the main thread
+ * Velocities are in blocks per tick like Bukkit's
+ */
+public interface LoaderPlayer {
+
+    UUID getUniqueId();
+
+    String getName();
+
+    LoaderWorld getWorld();
+
+    double getX();
+
+    double getY();
+
+    double getZ();
+
+    double getVelocityX();
+
+    double getVelocityZ();
+
+    /**
+     * @return The horizontal direction the player looks in
+     */
+    BlockFace getFacing();
+
+    /**
+     * @return How the player is travelling right now
+     */
+    MovementMode getMode();
+
+    /**
+     * Get where the player's vehicle is and how fast it moves
+     * @return {x, y, z, velocityX, velocityZ}, or null if the player is not riding anything
+     */
+    double[] getVehicleMotion();
+
+    default int getChunkX() {
+        return ((int) Math.floor(getX())) >> 4;
+    }
+
+    default int getChunkZ() {
+        return ((int) Math.floor(getZ())) >> 4;
+    }
+}
@@ -0,0 +1,49 @@
+package id.rnggagib.logic;
+
+/**
+ * Runs the loader's tasks, on the server scheduler in the plugin and on a fake tick loop in the simulator
+ * Delays and periods are in server ticks
+ */
+public interface LoaderScheduler {
+
+    /**
+     * Run a task repeatedly on the main thread
+     * @param task The task
+     * @param delayTicks Ticks before the first run
+     * @param periodTicks Ticks between runs
+     * @return The scheduled task
+     */
+    Task runTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Run a task repeatedly off the main thread
+     * @param task The task
+     * @param delayTicks Ticks before the first run
+     * @param periodTicks Ticks between runs
+     * @return The scheduled task
+     */
+    Task runTimerAsync(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Run a task once on the main thread, on the next tick
+     * @param task The task
+     * @return The scheduled task
+     */
+    Task runTask(Runnable task);
+
+    /**
+     * Run a task once off the main thread
+     * @param task The task
+     * @return The scheduled task
+     */
+    Task runAsync(Runnable task);
+
+    /**
+     * A scheduled task
+     */
+    interface Task {
+        void cancel();
+
+        boolean isCancelled();
+    }
+}
@@ -0,0 +1,55 @@
+package id.rnggagib.logic;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The parts of a world the loader uses
+ * Two instances for the same world must be equal, the loader keys its queue by world
+ */
+public interface LoaderWorld {
+
+    String getName();
+
+    UUID getUID();
+
+    /**
+     * Load or generate a chunk without blocking the calling thread
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return Completes once the chunk is loaded
+     */
+    CompletableFuture<?> loadChunkAsync(int x, int z);
+
+    /**
+     * Check whether a chunk exists on disk, main thread only
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return true if the chunk was generated before
+     */
+    boolean isChunkGenerated(int x, int z);
+
+    /**
+     * @return The {x, z} coordinates of the chunk holding the spawn point
+     */
+    int[] getSpawnChunk();
+
+    /**
+     * @return The {x, z} coordinates of every chunk loaded right now, main thread only
+     */
+    List<int[]> getLoadedChunks();
+
+    /**
+     * Trace the rail line under a minecart, main thread only
+     * @param x Block X of the minecart
+     * @param y Block Y of the minecart
+     * @param z Block Z of the minecart
+     * @param velocityX Minecart X velocity
+     * @param velocityZ Minecart Z velocity
+     * @param maxBlocks Maximum number of rail blocks to follow
+     * @return The trace, or null if the minecart is not on a rail
+     * @see RailTracer#trace
+     */
+    RailTracer.TraceResult traceRail(int x, int y, int z, double velocityX, double velocityZ, int maxBlocks);
+}
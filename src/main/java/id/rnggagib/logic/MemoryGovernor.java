@@ -0,0 +1,291 @@
+package id.rnggagib.logic;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Throttles chunk preloading while the heap is under pressure
+ *
+ * Watches the old generation occupancy after each garbage collection, through GC notifications,
+ * collection usage threshold notifications and polling as a fallback. Under pressure the throttle
+ * drops at once, shrinking the queue cap and the number of loads allowed in flight.
+ * Once pressure clears it recovers gradually so a single clean collection does not undo it.
+ * While disabled the queue cap and in-flight limit do not apply at all.
+ */
+public class MemoryGovernor {
+    private static final double ELEVATED_THROTTLE = 0.5;
+    private static final double CRITICAL_THROTTLE = 0.1;
+    // Occupancy has to drop this far below the high threshold before recovery starts
+    private static final double HYSTERESIS = 0.05;
+
+    private final Logger logger;
+    private final List<MemoryPoolMXBean> tenuredPools = new ArrayList<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onNotification;
+    // Collection usage thresholds this governor set, so they can be updated and cleared without touching foreign ones
+    private final Map<MemoryPoolMXBean, Long> ownThresholds = new IdentityHashMap<>();
+
+    private volatile boolean enabled = true;
+    private volatile double highThreshold = 0.80;
+    private volatile double criticalThreshold = 0.92;
+    private volatile int queueCap = 4096;
+    private volatile int maxInFlight = 64;
+    private volatile double recoveryPerSecond = 0.05;
+
+    private volatile State state = State.NORMAL;
+    private volatile double throttle = 1.0;
+    private volatile double occupancy = 0.0;
+    private long lastTickNanos = System.nanoTime();
+
+    public MemoryGovernor(Logger logger) {
+        this.logger = logger;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // Only the old generation supports usage thresholds among the heap pools
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                && pool.isCollectionUsageThresholdSupported()) {
+                tenuredPools.add(pool);
+            }
+        }
+    }
+
+    /**
+     * Apply new settings, can be called at any time
+     * @param enabled Whether the governor throttles loading at all
+     * @param highThreshold Old generation occupancy after GC at which loading is halved
+     * @param criticalThreshold Occupancy at which loading is cut to a tenth
+     * @param queueCap Queue cap without pressure
+     * @param maxInFlight Loads allowed in flight without pressure
+     * @param recoveryPerSecond Share of the throttle recovered per second once pressure clears
+     */
+    public synchronized void configure(boolean enabled, double highThreshold, double criticalThreshold,
+                                       int queueCap, int maxInFlight, double recoveryPerSecond) {
+        this.enabled = enabled;
+        this.highThreshold = highThreshold;
+        this.criticalThreshold = Math.max(highThreshold, criticalThreshold);
+        this.queueCap = Math.max(1, queueCap);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.recoveryPerSecond = Math.max(0.001, recoveryPerSecond);
+        if (!enabled) {
+            state = State.NORMAL;
+            throttle = 1.0;
+        }
+        if (!emitters.isEmpty()) {
+            applyThresholds();
+        }
+    }
+
+    /**
+     * Set the collection usage thresholds to the high threshold, or clear ours while disabled
+     * Thresholds set by something else are left alone
+     */
+    private void applyThresholds() {
+        if (!enabled) {
+            clearThresholds();
+            return;
+        }
+        for (MemoryPoolMXBean pool : tenuredPools) {
+            long current = pool.getCollectionUsageThreshold();
+            Long own = ownThresholds.get(pool);
+            if (current != 0 && (own == null || own != current)) {
+                continue;
+            }
+            long max = maxOf(pool.getUsage());
+            if (max > 0) {
+                long threshold = (long) (max * highThreshold);
+                pool.setCollectionUsageThreshold(threshold);
+                ownThresholds.put(pool, threshold);
+            }
+        }
+    }
+
+    /**
+     * Reset the collection usage thresholds this governor set, unless something else replaced them since
+     */
+    private void clearThresholds() {
+        for (Map.Entry<MemoryPoolMXBean, Long> entry : ownThresholds.entrySet()) {
+            if (entry.getKey().getCollectionUsageThreshold() == entry.getValue()) {
+                entry.getKey().setCollectionUsageThreshold(0);
+            }
+        }
+        ownThresholds.clear();
+    }
+
+    /**
+     * Start listening for GC and memory threshold notifications
+     */
+    public synchronized void start() {
+        removeListeners();
+        if (tenuredPools.isEmpty()) {
+            logger.warning("No old generation memory pool found, memory governor only polls heap usage");
+        }
+        addEmitter(ManagementFactory.getMemoryMXBean());
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            addEmitter(collector);
+        }
+        applyThresholds();
+    }
+
+    /**
+     * Remove the notification listeners and our collection usage thresholds, they are JVM wide and would outlive the plugin
+     */
+    public synchronized void stop() {
+        removeListeners();
+        clearThresholds();
+    }
+
+    private void removeListeners() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException ignored) {
+                // Already removed
+            }
+        }
+        emitters.clear();
+    }
+
+    private void addEmitter(Object bean) {
+        if (bean instanceof NotificationEmitter) {
+            NotificationEmitter emitter = (NotificationEmitter) bean;
+            emitter.addNotificationListener(listener, null, null);
+            emitters.add(emitter);
+        }
+    }
+
+    /**
+     * Called on a JMX thread after every collection and when a collection usage threshold is exceeded
+     */
+    private void onNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (type.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)
+            || type.equals("com.sun.management.gc.notification")) {
+            evaluate(measureOccupancy());
+        }
+    }
+
+    /**
+     * Poll occupancy and recover the throttle, called once per loader pass
+     */
+    public void tick() {
+        evaluate(measureOccupancy());
+    }
+
+    private synchronized void evaluate(double measured) {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastTickNanos) / 1_000_000_000.0;
+        lastTickNanos = now;
+        occupancy = measured;
+        if (!enabled) {
+            return;
+        }
+
+        State previous = state;
+        if (measured >= criticalThreshold) {
+            throttle = Math.min(throttle, CRITICAL_THROTTLE);
+            state = State.CRITICAL;
+        } else if (measured >= highThreshold) {
+            throttle = Math.min(throttle, ELEVATED_THROTTLE);
+            state = State.ELEVATED;
+        } else if (measured < highThreshold - HYSTERESIS && throttle < 1.0) {
+            throttle = Math.min(1.0, throttle + recoveryPerSecond * elapsedSeconds);
+            state = throttle >= 1.0 ? State.NORMAL : State.RECOVERING;
+        }
+
+        if (state != previous && (state == State.CRITICAL || state == State.ELEVATED || state == State.NORMAL)) {
+            logger.info(String.format("Memory pressure %s (old generation %.0f%% after GC), preloading at %.0f%%",
+                state.name().toLowerCase(), measured * 100, throttle * 100));
+        }
+    }
+
+    /**
+     * @return Highest old generation occupancy after the last collection, between 0 and 1
+     */
+    private double measureOccupancy() {
+        double highest = 0;
+        for (MemoryPoolMXBean pool : tenuredPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            long max = maxOf(pool.getUsage());
+            if (usage != null && max > 0) {
+                highest = Math.max(highest, (double) usage.getUsed() / max);
+            }
+        }
+        if (tenuredPools.isEmpty()) {
+            Runtime runtime = Runtime.getRuntime();
+            highest = (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+        }
+        return highest;
+    }
+
+    private static long maxOf(MemoryUsage usage) {
+        long max = usage.getMax();
+        return max > 0 ? max : Runtime.getRuntime().maxMemory();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return true while old generation occupancy is above the high threshold
+     */
+    public boolean isUnderPressure() {
+        State current = state;
+        return current == State.ELEVATED || current == State.CRITICAL;
+    }
+
+    /**
+     * @return Share of the normal loading capacity currently allowed, between 0.1 and 1
+     */
+    public double getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * @return Old generation occupancy after the last collection, between 0 and 1
+     */
+    public double getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * @return The number of chunks allowed to wait in the queue right now, unlimited while disabled
+     * Chunks of API requests only count towards it under pressure
+     */
+    public int getQueueCap() {
+        return enabled ? Math.max(1, (int) (queueCap * throttle)) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return The number of chunk loads allowed in flight right now, unlimited while disabled
+     */
+    public int getInFlightLimit() {
+        return enabled ? Math.max(1, (int) (maxInFlight * throttle)) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Memory pressure states
+     */
+    public enum State {
+        /** No pressure, loading at full capacity */
+        NORMAL,
+        /** Pressure cleared, capacity is being restored */
+        RECOVERING,
+        /** Old generation above the high threshold after GC */
+        ELEVATED,
+        /** Old generation above the critical threshold after GC */
+        CRITICAL
+    }
+}
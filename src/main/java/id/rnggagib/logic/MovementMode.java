@@ -0,0 +1,61 @@
+package id.rnggagib.logic;
+
+import org.bukkit.entity.AbstractHorse;
+import org.bukkit.entity.Boat;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Minecart;
+import org.bukkit.entity.Player;
+
+/**
+ * The ways a player can travel through the world
+ * Each mode has its own loading profile because the shape of the path differs a lot
+ */
+public enum MovementMode {
+    WALKING("walking"),
+    ELYTRA("elytra"),
+    RIPTIDE("riptide"),
+    BOAT("boat"),
+    MINECART("minecart"),
+    HORSE("horse");
+
+    private final String configKey;
+
+    MovementMode(String configKey) {
+        this.configKey = configKey;
+    }
+
+    /**
+     * Get the key of this mode's section under movement-profiles in config.yml
+     * @return The config key
+     */
+    public String getConfigKey() {
+        return configKey;
+    }
+
+    /**
+     * Detect how a player is currently moving
+     * Must be called from the main thread
+     * @param player The player
+     * @return The detected movement mode
+     */
+    public static MovementMode detect(Player player) {
+        if (player.isGliding()) {
+            return ELYTRA;
+        }
+        if (player.isRiptiding()) {
+            return RIPTIDE;
+        }
+
+        Entity vehicle = player.getVehicle();
+        if (vehicle instanceof Minecart) {
+            return MINECART;
+        }
+        if (vehicle instanceof Boat) {
+            return BOAT;
+        }
+        if (vehicle instanceof AbstractHorse) {
+            return HORSE;
+        }
+        return WALKING;
+    }
+}
@@ -0,0 +1,88 @@
+package id.rnggagib.logic;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Loading profile for a single movement mode
+ * Controls how far ahead, how wide and how much of the loader budget a mode gets
+ */
+public class MovementProfile {
+    private final MovementMode mode;
+    private final int frontierMinDistance;
+    private final int frontierMaxDistance;
+    private final int width;
+    private final double coneSpreadFactor;
+    private final double budgetShare;
+    private final boolean railTracing;
+
+    public MovementProfile(MovementMode mode, int frontierMinDistance, int frontierMaxDistance, int width,
+                           double coneSpreadFactor, double budgetShare, boolean railTracing) {
+        this.mode = mode;
+        this.frontierMinDistance = Math.max(0, frontierMinDistance);
+        this.frontierMaxDistance = Math.max(this.frontierMinDistance, frontierMaxDistance);
+        this.width = Math.max(0, width);
+        this.coneSpreadFactor = Math.max(0.0, coneSpreadFactor);
+        this.budgetShare = Math.max(0.0, Math.min(1.0, budgetShare));
+        this.railTracing = railTracing;
+    }
+
+    /**
+     * Read a profile from its config section, falling back to the given defaults for missing keys
+     * @param mode The movement mode
+     * @param section The mode's config section (may be null)
+     * @param defaults The profile to take missing values from
+     * @return The loaded profile
+     */
+    public static MovementProfile fromConfig(MovementMode mode, ConfigurationSection section, MovementProfile defaults) {
+        if (section == null) {
+            return new MovementProfile(mode, defaults.frontierMinDistance, defaults.frontierMaxDistance,
+                defaults.width, defaults.coneSpreadFactor, defaults.budgetShare, defaults.railTracing);
+        }
+        return new MovementProfile(
+            mode,
+            section.getInt("frontier-distance.min", defaults.frontierMinDistance),
+            section.getInt("frontier-distance.max", defaults.frontierMaxDistance),
+            section.getInt("frontier-width", defaults.width),
+            section.getDouble("cone-spread-factor", defaults.coneSpreadFactor),
+            section.getDouble("budget-share", defaults.budgetShare),
+            section.getBoolean("rail-tracing", defaults.railTracing)
+        );
+    }
+
+    public MovementMode getMode() {
+        return mode;
+    }
+
+    public int getFrontierMinDistance() {
+        return frontierMinDistance;
+    }
+
+    public int getFrontierMaxDistance() {
+        return frontierMaxDistance;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public double getConeSpreadFactor() {
+        return coneSpreadFactor;
+    }
+
+    public double getBudgetShare() {
+        return budgetShare;
+    }
+
+    public boolean isRailTracing() {
+        return railTracing;
+    }
+
+    /**
+     * Number of chunks this mode may dispatch out of a loader pass
+     * @param chunksToProcess The total chunks in the pass
+     * @return The mode's share, never below one
+     */
+    public int budgetFor(int chunksToProcess) {
+        return Math.max(1, (int) Math.round(chunksToProcess * budgetShare));
+    }
+}
@@ -0,0 +1,164 @@
+package id.rnggagib.logic;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world index of the chunks online players stand in, bucketed into 16x16 chunk cells
+ * Answers "how far is the nearest player" and "how many players cover this chunk" by looking at
+ * the few cells around a chunk, independent of the number of players online
+ * Updated from the main thread only, queries are safe from any thread
+ */
+public class PlayerChunkIndex {
+    private static final int CELL_SHIFT = 4;
+
+    private final Map<String, Map<Long, Set<Position>>> worlds = new ConcurrentHashMap<>();
+    private final Map<UUID, Position> positions = new ConcurrentHashMap<>();
+
+    /**
+     * Record the chunk a player stands in, cheap when it did not change
+     * @param playerId The player's UUID
+     * @param world The world name
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    public void update(UUID playerId, String world, int chunkX, int chunkZ) {
+        Position old = positions.get(playerId);
+        if (old != null && old.chunkX == chunkX && old.chunkZ == chunkZ && old.world.equals(world)) {
+            return;
+        }
+        Position position = new Position(world, chunkX, chunkZ);
+        // Add before removing so concurrent queries never miss the player entirely
+        worlds.computeIfAbsent(world, w -> new ConcurrentHashMap<>())
+            .computeIfAbsent(cellKey(chunkX >> CELL_SHIFT, chunkZ >> CELL_SHIFT), c -> ConcurrentHashMap.newKeySet())
+            .add(position);
+        positions.put(playerId, position);
+        if (old != null) {
+            unbucket(old);
+        }
+    }
+
+    /**
+     * Stop tracking a player
+     * @param playerId The player's UUID
+     */
+    public void remove(UUID playerId) {
+        Position old = positions.remove(playerId);
+        if (old != null) {
+            unbucket(old);
+        }
+    }
+
+    /**
+     * Get the distance to the nearest player, measured in chunks along the larger axis
+     * like the server's view distance
+     * @param world The world name
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @param maxRadius Players further away than this are not looked for
+     * @return The distance, or Integer.MAX_VALUE if no player is within maxRadius
+     */
+    public int nearestDistance(String world, int chunkX, int chunkZ, int maxRadius) {
+        Map<Long, Set<Position>> cells = worlds.get(world);
+        if (cells == null) {
+            return Integer.MAX_VALUE;
+        }
+        int nearest = Integer.MAX_VALUE;
+        int minCellX = (chunkX - maxRadius) >> CELL_SHIFT;
+        int maxCellX = (chunkX + maxRadius) >> CELL_SHIFT;
+        int minCellZ = (chunkZ - maxRadius) >> CELL_SHIFT;
+        int maxCellZ = (chunkZ + maxRadius) >> CELL_SHIFT;
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                Set<Position> cell = cells.get(cellKey(cellX, cellZ));
+                if (cell == null) {
+                    continue;
+                }
+                for (Position position : cell) {
+                    int distance = Math.max(Math.abs(position.chunkX - chunkX), Math.abs(position.chunkZ - chunkZ));
+                    if (distance <= maxRadius && distance < nearest) {
+                        nearest = distance;
+                        if (nearest == 0) {
+                            return 0;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Count the players within a radius of a chunk
+     * @param world The world name
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     * @param radius The radius in chunks
+     * @return The number of players
+     */
+    public int coverage(String world, int chunkX, int chunkZ, int radius) {
+        Map<Long, Set<Position>> cells = worlds.get(world);
+        if (cells == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int cellX = (chunkX - radius) >> CELL_SHIFT; cellX <= (chunkX + radius) >> CELL_SHIFT; cellX++) {
+            for (int cellZ = (chunkZ - radius) >> CELL_SHIFT; cellZ <= (chunkZ + radius) >> CELL_SHIFT; cellZ++) {
+                Set<Position> cell = cells.get(cellKey(cellX, cellZ));
+                if (cell == null) {
+                    continue;
+                }
+                for (Position position : cell) {
+                    if (Math.abs(position.chunkX - chunkX) <= radius && Math.abs(position.chunkZ - chunkZ) <= radius) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of players tracked
+     */
+    public int size() {
+        return positions.size();
+    }
+
+    private void unbucket(Position position) {
+        Map<Long, Set<Position>> cells = worlds.get(position.world);
+        if (cells == null) {
+            return;
+        }
+        long key = cellKey(position.chunkX >> CELL_SHIFT, position.chunkZ >> CELL_SHIFT);
+        Set<Position> cell = cells.get(key);
+        if (cell != null) {
+            cell.remove(position);
+            // Only the main thread adds, so an empty cell cannot gain a player while it is removed
+            if (cell.isEmpty()) {
+                cells.remove(key, cell);
+            }
+        }
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A player's chunk, compared by identity so two players in the same chunk are both kept
+     */
+    private static class Position {
+        private final String world;
+        private final int chunkX;
+        private final int chunkZ;
+
+        private Position(String world, int chunkX, int chunkZ) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package id.rnggagib.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Spatial grid over the chunk positions and headings of players, used to find players travelling together
+ * Updated incrementally as players cross chunk borders, so finding a player's neighbours only looks at nearby cells
+ * Not thread-safe, only used from the main thread
+ */
+public class PlayerGrid {
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final Map<String, Map<Long, List<Entry>>> cells = new HashMap<>();
+    private int cellSize;
+
+    /**
+     * @param cellSize Width of a grid cell in chunks
+     */
+    public PlayerGrid(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+    }
+
+    /**
+     * Change the cell size, re-bucketing every tracked player
+     * @param cellSize Width of a grid cell in chunks
+     */
+    public void setCellSize(int cellSize) {
+        cellSize = Math.max(1, cellSize);
+        if (cellSize == this.cellSize) {
+            return;
+        }
+        this.cellSize = cellSize;
+        cells.clear();
+        for (Entry entry : entries.values()) {
+            entry.cell = cellKey(entry.chunkX, entry.chunkZ);
+            bucket(entry.world, entry.cell).add(entry);
+        }
+    }
+
+    /**
+     * Record a player's position and frontier cone, dropping the frontier planned at the previous position
+     * @param playerId The player's UUID
+     * @param world The world name
+     * @param chunkX The player's chunk X
+     * @param chunkZ The player's chunk Z
+     * @param cone The player's frontier cone, its direction is the heading
+     * @param mode The movement mode
+     */
+    public void update(UUID playerId, String world, int chunkX, int chunkZ, FrontierPlanner.Cone cone,
+                       MovementMode mode) {
+        long cell = cellKey(chunkX, chunkZ);
+        Entry entry = entries.get(playerId);
+        if (entry == null) {
+            entry = new Entry(playerId);
+            entries.put(playerId, entry);
+        } else if (!entry.world.equals(world) || entry.cell != cell) {
+            unbucket(entry);
+        } else {
+            entry.set(chunkX, chunkZ, cone, mode);
+            return;
+        }
+        entry.world = world;
+        entry.cell = cell;
+        entry.set(chunkX, chunkZ, cone, mode);
+        bucket(world, cell).add(entry);
+    }
+
+    /**
+     * Stop tracking a player
+     * @param playerId The player's UUID
+     */
+    public void remove(UUID playerId) {
+        Entry entry = entries.remove(playerId);
+        if (entry != null) {
+            unbucket(entry);
+        }
+    }
+
+    public Entry get(UUID playerId) {
+        return entries.get(playerId);
+    }
+
+    /**
+     * Drop every planned frontier, after a reload changed how frontiers are planned
+     */
+    public void clearPlans() {
+        for (Entry entry : entries.values()) {
+            entry.setPlan(null, null);
+        }
+    }
+
+    /**
+     * Check whether any other player travels with the given one
+     * @param playerId The player's UUID
+     * @param radius Maximum distance in chunks between companions
+     * @param minHeadingCos Cosine of the largest heading difference between companions
+     * @return true if the player has at least one companion
+     */
+    public boolean hasCompanions(UUID playerId, int radius, double minHeadingCos) {
+        Entry entry = entries.get(playerId);
+        if (entry == null) {
+            return false;
+        }
+        List<Entry> found = new ArrayList<>();
+        collectCompanions(entry, radius, minHeadingCos, found);
+        return !found.isEmpty();
+    }
+
+    /**
+     * Find the group a player travels with, following companions of companions
+     * @param playerId The player's UUID
+     * @param radius Maximum distance in chunks between companions
+     * @param minHeadingCos Cosine of the largest heading difference between companions
+     * @param maxSize Largest group returned
+     * @return The group including the player itself, empty if the player is not tracked
+     */
+    public List<Entry> cluster(UUID playerId, int radius, double minHeadingCos, int maxSize) {
+        List<Entry> members = new ArrayList<>();
+        Entry seed = entries.get(playerId);
+        if (seed == null) {
+            return members;
+        }
+
+        Set<UUID> seen = new HashSet<>();
+        Deque<Entry> open = new ArrayDeque<>();
+        seen.add(seed.playerId);
+        open.add(seed);
+        List<Entry> companions = new ArrayList<>();
+        while (!open.isEmpty() && members.size() < maxSize) {
+            Entry member = open.poll();
+            members.add(member);
+            companions.clear();
+            collectCompanions(member, radius, minHeadingCos, companions);
+            for (Entry companion : companions) {
+                if (seen.add(companion.playerId)) {
+                    open.add(companion);
+                }
+            }
+        }
+        return members;
+    }
+
+    private void collectCompanions(Entry entry, int radius, double minHeadingCos, List<Entry> found) {
+        Map<Long, List<Entry>> worldCells = cells.get(entry.world);
+        if (worldCells == null) {
+            return;
+        }
+        int cellRange = (radius + cellSize - 1) / cellSize;
+        int cellX = Math.floorDiv(entry.chunkX, cellSize);
+        int cellZ = Math.floorDiv(entry.chunkZ, cellSize);
+        for (int dx = -cellRange; dx <= cellRange; dx++) {
+            for (int dz = -cellRange; dz <= cellRange; dz++) {
+                List<Entry> bucket = worldCells.get(key(cellX + dx, cellZ + dz));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Entry other : bucket) {
+                    if (other != entry && other.mode == entry.mode
+                        && Math.abs(other.chunkX - entry.chunkX) <= radius
+                        && Math.abs(other.chunkZ - entry.chunkZ) <= radius
+                        && other.directionX * entry.directionX + other.directionZ * entry.directionZ >= minHeadingCos) {
+                        found.add(other);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Entry> bucket(String world, long cell) {
+        return cells.computeIfAbsent(world, w -> new HashMap<>()).computeIfAbsent(cell, c -> new ArrayList<>(2));
+    }
+
+    private void unbucket(Entry entry) {
+        Map<Long, List<Entry>> worldCells = cells.get(entry.world);
+        if (worldCells == null) {
+            return;
+        }
+        List<Entry> bucket = worldCells.get(entry.cell);
+        if (bucket != null) {
+            bucket.remove(entry);
+            if (bucket.isEmpty()) {
+                worldCells.remove(entry.cell);
+            }
+        }
+    }
+
+    private long cellKey(int chunkX, int chunkZ) {
+        return key(Math.floorDiv(chunkX, cellSize), Math.floorDiv(chunkZ, cellSize));
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Last known position and heading of a player
+     */
+    public static class Entry {
+        private final UUID playerId;
+        private String world;
+        private long cell;
+        private int chunkX;
+        private int chunkZ;
+        private double directionX;
+        private double directionZ;
+        private FrontierPlanner.Cone cone;
+        private MovementMode mode;
+        // Frontier planned from this position, kept until the player crosses into another chunk
+        private long[] plannedCells;
+        private int[] plannedPriorities;
+
+        private Entry(UUID playerId) {
+            this.playerId = playerId;
+        }
+
+        private void set(int chunkX, int chunkZ, FrontierPlanner.Cone cone, MovementMode mode) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            // Headings are compared with a dot product, so keep them normalized
+            double length = Math.sqrt(cone.getDirectionX() * cone.getDirectionX() + cone.getDirectionZ() * cone.getDirectionZ());
+            this.directionX = length > 0 ? cone.getDirectionX() / length : 0;
+            this.directionZ = length > 0 ? cone.getDirectionZ() / length : 0;
+            this.cone = cone;
+            this.mode = mode;
+            this.plannedCells = null;
+            this.plannedPriorities = null;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        public int getChunkX() {
+            return chunkX;
+        }
+
+        public int getChunkZ() {
+            return chunkZ;
+        }
+
+        public double getDirectionX() {
+            return directionX;
+        }
+
+        public double getDirectionZ() {
+            return directionZ;
+        }
+
+        public MovementMode getMode() {
+            return mode;
+        }
+
+        public FrontierPlanner.Cone getCone() {
+            return cone;
+        }
+
+        /**
+         * @return Chunk keys of the frontier planned from the current position, null if not planned yet
+         */
+        public long[] getPlannedCells() {
+            return plannedCells;
+        }
+
+        /**
+         * @return Priorities of the planned chunks, in the same order as {@link #getPlannedCells()}
+         */
+        public int[] getPlannedPriorities() {
+            return plannedPriorities;
+        }
+
+        public void setPlan(long[] cells, int[] priorities) {
+            this.plannedCells = cells;
+            this.plannedPriorities = priorities;
+        }
+    }
+}
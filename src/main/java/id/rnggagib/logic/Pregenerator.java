@@ -0,0 +1,558 @@
+package id.rnggagib.logic;
+
+import id.rnggagib.metrics.MetricsRegistry;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+/**
+ * Generates a square area around a world's spawn through the normal load queue, at the lowest priority class
+ * Walks the area in a spiral so a stopped run leaves a usable square, keeping only a small window of chunks queued.
+ * Pauses by itself while players are online or the server is slow, and persists its progress so it survives restarts.
+ * Everything except writing the progress file runs on the main thread
+ */
+public class Pregenerator {
+    private static final String PROGRESS_FILE = "pregen.yml";
+    // Limits the main thread time spent checking for already generated chunks per run, the checks read region files
+    private static final long MAX_CHECK_NANOS_PER_RUN = 2000000L;
+    private static final long RATE_WINDOW_MILLIS = 10000;
+
+    private final LoaderPlatform platform;
+    private final Logger logger;
+    private final ChunkLoadManager chunkLoadManager;
+    private final File progressFile;
+    private final MetricsRegistry.Counter generatedCounter;
+
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private volatile Job job;
+    private LoaderScheduler.Task task;
+    private volatile String pauseReason;
+    private volatile boolean feeding;
+
+    // Throughput, over a short window and since the run was started
+    private long rateWindowStart;
+    private long rateWindowCount;
+    private volatile double rate;
+    private long runStart;
+    private long runCount;
+
+    private long lastSave;
+    private long lastReport;
+
+    public Pregenerator(LoaderPlatform platform, ChunkLoadManager chunkLoadManager) {
+        this.platform = platform;
+        this.logger = platform.getLogger();
+        this.chunkLoadManager = chunkLoadManager;
+        this.progressFile = new File(platform.getDataFolder(), PROGRESS_FILE);
+        MetricsRegistry metrics = chunkLoadManager.getMetrics();
+        generatedCounter = metrics.counter("pcl_pregen_chunks_total", "Chunks generated by pregeneration");
+        metrics.gauge("pcl_pregen_progress", "Share of the pregeneration area that is done", () -> {
+            Job current = job;
+            return current != null ? current.getProgress() : 0;
+        });
+        metrics.gauge("pcl_pregen_chunks_per_second", "Chunks generated per second by pregeneration", () -> rate);
+    }
+
+    /**
+     * Start a new pregeneration run around the world's spawn
+     * @param world The world
+     * @param radius Radius of the square in chunks
+     * @return An error message, or null if the run was started
+     */
+    public String start(LoaderWorld world, int radius) {
+        if (job != null) {
+            return "A pregeneration of " + job.worldName + " exists, resume or cancel it first";
+        }
+        int[] spawn = world.getSpawnChunk();
+        job = new Job(world.getName(), spawn[0], spawn[1], radius);
+        job.running = true;
+        startTask();
+        saveProgress(true);
+        logger.info("Started pregeneration of " + world.getName() + " with a radius of " + radius + " chunks ("
+            + job.getTotal() + " chunks)");
+        return null;
+    }
+
+    /**
+     * Resume a stopped run
+     * @return An error message, or null if the run was resumed
+     */
+    public String resume() {
+        if (job == null) {
+            return "There is no pregeneration to resume";
+        }
+        if (job.running) {
+            return "The pregeneration of " + job.worldName + " is already running";
+        }
+        job.running = true;
+        startTask();
+        saveProgress(true);
+        return null;
+    }
+
+    /**
+     * Stop the run, keeping its progress for a later resume
+     * @return An error message, or null if the run was stopped
+     */
+    public String stop() {
+        if (job == null || !job.running) {
+            return "There is no running pregeneration";
+        }
+        job.running = false;
+        halt();
+        saveProgress(true);
+        return null;
+    }
+
+    /**
+     * Stop the run and delete its progress
+     * @return An error message, or null if the run was cancelled
+     */
+    public String cancel() {
+        if (job == null) {
+            return "There is no pregeneration to cancel";
+        }
+        halt();
+        logger.info("Cancelled pregeneration of " + job.worldName + " at " + job.describeProgress());
+        job = null;
+        if (progressFile.exists() && !progressFile.delete()) {
+            logger.warning("Failed to delete " + progressFile.getPath());
+        }
+        return null;
+    }
+
+    /**
+     * Load the progress file and continue a run that was running when the server stopped
+     * Called once when the plugin is enabled
+     */
+    public void restore() {
+        if (!progressFile.exists()) {
+            return;
+        }
+        YamlConfiguration progress = YamlConfiguration.loadConfiguration(progressFile);
+        String worldName = progress.getString("world");
+        if (worldName == null) {
+            logger.warning("Ignoring " + PROGRESS_FILE + " without a world");
+            return;
+        }
+        job = new Job(worldName, progress.getInt("center-x", 0), progress.getInt("center-z", 0),
+            progress.getInt("radius", 0));
+        job.nextIndex = progress.getLong("next-index", 0);
+        job.generated = progress.getLong("generated", 0);
+        job.skipped = progress.getLong("skipped", 0);
+        job.failed = progress.getLong("failed", 0);
+        job.running = progress.getBoolean("running", false);
+        if (job.running) {
+            startTask();
+            logger.info("Resuming pregeneration of " + worldName + " at " + job.describeProgress());
+        }
+    }
+
+    /**
+     * Save the progress and stop feeding the queue, called when the plugin is disabled
+     */
+    public void shutdown() {
+        if (job == null) {
+            return;
+        }
+        halt();
+        saveProgress(false);
+    }
+
+    /**
+     * @return true while the run is feeding the queue, the loader then uses the larger pregeneration pass size
+     */
+    public boolean isFeeding() {
+        return feeding;
+    }
+
+    /**
+     * Describe the state of the run for /pcl pregen status
+     * @return The status lines, empty if there is no run
+     */
+    public List<String> getStatus() {
+        List<String> lines = new ArrayList<>();
+        if (job == null) {
+            return lines;
+        }
+        String state = !job.running ? "stopped" : pauseReason != null ? "paused (" + pauseReason + ")" : "running";
+        lines.add("World: " + job.worldName + ", radius " + job.radius + " chunks around " + (job.centerX << 4)
+            + ", " + (job.centerZ << 4) + ", " + state);
+        lines.add("Progress: " + job.describeProgress() + ", " + job.generated + " generated, " + job.skipped
+            + " already generated, " + job.failed + " failed");
+        if (job.running) {
+            long elapsed = platform.currentTimeMillis() - runStart;
+            double average = elapsed > 0 ? runCount * 1000.0 / elapsed : 0;
+            lines.add("Throughput: " + String.format("%.1f", rate) + " chunks/s now, " + String.format("%.1f", average)
+                + " chunks/s since start" + (rate > 0 ? ", ETA " + formatDuration((long) (job.getRemaining() / rate)) : ""));
+        }
+        return lines;
+    }
+
+    private void startTask() {
+        pending.clear();
+        long now = platform.currentTimeMillis();
+        runStart = now;
+        runCount = 0;
+        rateWindowStart = now;
+        rateWindowCount = 0;
+        rate = 0;
+        lastSave = now;
+        lastReport = now;
+        pauseReason = null;
+        task = platform.getScheduler().runTimer(this::tick, 20L, 20L); // Run every second
+    }
+
+    /**
+     * Stop the task and withdraw the chunks still waiting in the queue
+     */
+    private void halt() {
+        if (task != null && !task.isCancelled()) {
+            task.cancel();
+        }
+        task = null;
+        feeding = false;
+        pauseReason = null;
+        rate = 0;
+        withdraw();
+    }
+
+    /**
+     * Take the chunks still waiting back off the queue and cancel their requests
+     * The run goes back to the first chunk whose load had not finished, so none are left out when it continues.
+     * Chunks after that one were not counted yet, so walking them again does not count them twice.
+     */
+    private void withdraw() {
+        if (job != null) {
+            job.nextIndex = persistedIndex();
+        }
+        List<PreloadRequest> requests = new ArrayList<>();
+        for (Pending entry : pending) {
+            if (entry.request != null && !entry.settled) {
+                requests.add(entry.request);
+            }
+        }
+        chunkLoadManager.withdrawRequests(requests);
+        for (PreloadRequest request : requests) {
+            request.cancel();
+        }
+        pending.clear();
+    }
+
+    private void tick() {
+        LoaderConfig config = chunkLoadManager.getConfig();
+        long now = platform.currentTimeMillis();
+        settle();
+
+        LoaderWorld world = platform.getWorld(job.worldName);
+        if (world == null) {
+            pauseReason = "world not loaded";
+        } else if (config.isPregenPauseWhenPlayersOnline() && !platform.getOnlinePlayers().isEmpty()) {
+            pauseReason = "players online";
+        } else if (platform.getAverageTickTime() > config.getPregenMaxMspt()) {
+            pauseReason = "MSPT above " + config.getPregenMaxMspt();
+        } else {
+            pauseReason = null;
+            feed(world, config.getPregenMaxQueued());
+        }
+        feeding = pauseReason == null;
+        if (!feeding && !pending.isEmpty()) {
+            // Queued chunks would otherwise still be generated while players are on
+            withdraw();
+        }
+
+        // Throughput over a short window
+        if (now - rateWindowStart >= RATE_WINDOW_MILLIS) {
+            rate = rateWindowCount * 1000.0 / (now - rateWindowStart);
+            rateWindowStart = now;
+            rateWindowCount = 0;
+        }
+
+        if (job.nextIndex >= job.getTotal() && pending.isEmpty()) {
+            finish();
+            return;
+        }
+        if (now - lastSave >= config.getPregenSaveIntervalSeconds() * 1000L) {
+            lastSave = now;
+            saveProgress(true);
+        }
+        if (now - lastReport >= config.getPregenReportIntervalSeconds() * 1000L) {
+            lastReport = now;
+            logger.info("Pregeneration of " + job.worldName + ": " + job.describeProgress() + ", "
+                + String.format("%.1f", rate) + " chunks/s" + (pauseReason != null ? ", paused (" + pauseReason + ")" : ""));
+        }
+    }
+
+    /**
+     * Note the chunks whose loads have finished
+     * They are counted once every chunk before them has finished too, so the counts always match
+     * the index a restarted run continues from
+     */
+    private void settle() {
+        for (Pending entry : pending) {
+            if (entry.settled || entry.request == null || !entry.request.getFuture().isDone()) {
+                continue;
+            }
+            Throwable failure = failureOf(entry.request.getFuture());
+            if (failure instanceof RejectedExecutionException) {
+                // Shed under memory pressure, submitted again once the queue has room
+                entry.request = null;
+                continue;
+            }
+            entry.settled = true;
+            entry.failed = failure != null;
+            if (failure == null) {
+                generatedCounter.increment();
+                rateWindowCount++;
+                runCount++;
+            } else {
+                logger.warning("Pregeneration failed to load chunk " + entry.x + ", " + entry.z + ": " + failure.getMessage());
+            }
+        }
+        while (!pending.isEmpty() && pending.peekFirst().settled) {
+            Pending entry = pending.pollFirst();
+            if (entry.failed) {
+                job.failed++;
+            } else {
+                job.generated++;
+            }
+            job.skipped += entry.skippedAfter;
+        }
+    }
+
+    private static Throwable failureOf(CompletableFuture<Void> future) {
+        try {
+            future.getNow(null);
+            return null;
+        } catch (CancellationException e) {
+            return e;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    /**
+     * Top the queue up to the window size, skipping chunks that were already generated
+     * The generated checks stop once the run's time budget is used up and continue on the next run
+     */
+    private void feed(LoaderWorld world, int maxQueued) {
+        List<Pending> submit = new ArrayList<>();
+        for (Pending entry : pending) {
+            if (!entry.settled && entry.request == null) {
+                submit.add(entry);
+            }
+        }
+
+        int outstanding = pending.size();
+        long total = job.getTotal();
+        long checkDeadline = System.nanoTime() + MAX_CHECK_NANOS_PER_RUN;
+        while (outstanding < maxQueued && job.nextIndex < total && System.nanoTime() < checkDeadline) {
+            int[] offset = spiral(job.nextIndex);
+            int x = job.centerX + offset[0];
+            int z = job.centerZ + offset[1];
+            job.nextIndex++;
+            if (world.isChunkGenerated(x, z)) {
+                // Counted together with the chunk before it, or right away if nothing before it is still loading
+                if (pending.isEmpty()) {
+                    job.skipped++;
+                } else {
+                    pending.peekLast().skippedAfter++;
+                }
+                continue;
+            }
+            Pending entry = new Pending(job.nextIndex - 1, x, z);
+            pending.addLast(entry);
+            submit.add(entry);
+            outstanding++;
+        }
+        if (submit.isEmpty()) {
+            return;
+        }
+
+        List<int[]> cells = new ArrayList<>(submit.size());
+        for (Pending entry : submit) {
+            cells.add(new int[] {entry.x, entry.z});
+        }
+        List<PreloadRequest> requests = chunkLoadManager.submitPregen(world, cells);
+        for (int i = 0; i < submit.size(); i++) {
+            submit.get(i).request = requests.get(i);
+        }
+    }
+
+    private void finish() {
+        logger.info("Finished pregeneration of " + job.worldName + ": " + job.generated + " chunks generated, "
+            + job.skipped + " already generated, " + job.failed + " failed");
+        halt();
+        job = null;
+        if (progressFile.exists() && !progressFile.delete()) {
+            logger.warning("Failed to delete " + progressFile.getPath());
+        }
+    }
+
+    /**
+     * Index from which a restarted run has to continue, the first chunk whose load has not finished
+     */
+    private long persistedIndex() {
+        for (Pending entry : pending) {
+            if (!entry.settled) {
+                return entry.index;
+            }
+        }
+        return job.nextIndex;
+    }
+
+    /**
+     * Write the progress file
+     * @param async Write it on the bookkeeping executor instead of the calling thread
+     */
+    private void saveProgress(boolean async) {
+        YamlConfiguration progress = new YamlConfiguration();
+        progress.set("world", job.worldName);
+        progress.set("center-x", job.centerX);
+        progress.set("center-z", job.centerZ);
+        progress.set("radius", job.radius);
+        progress.set("next-index", persistedIndex());
+        progress.set("generated", job.generated);
+        progress.set("skipped", job.skipped);
+        progress.set("failed", job.failed);
+        progress.set("running", job.running);
+        String data = progress.saveToString();
+
+        Runnable write = () -> {
+            Path target = progressFile.toPath();
+            Path temp = target.resolveSibling(PROGRESS_FILE + ".tmp");
+            try {
+                Files.createDirectories(target.getParent());
+                Files.write(temp, data.getBytes(StandardCharsets.UTF_8));
+                // Atomic move so a crash never leaves a half-written file
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warning("Failed to save pregeneration progress: " + e.getMessage());
+            }
+        };
+        if (async) {
+            chunkLoadManager.getBookkeeping().execute(write);
+        } else {
+            write.run();
+        }
+    }
+
+    /**
+     * Offset of the chunk at the given position of a square spiral starting at the center
+     * Ring k (k >= 1) starts at index (2k - 1)^2 and has 8k chunks
+     * @param index Position in the spiral
+     * @return The {x, z} offset from the center
+     */
+    static int[] spiral(long index) {
+        if (index == 0) {
+            return new int[] {0, 0};
+        }
+        long ring = (long) Math.ceil((Math.sqrt(index + 1) - 1) / 2);
+        // Correct the floating point estimate at ring boundaries
+        while ((2 * ring - 1) * (2 * ring - 1) > index) {
+            ring--;
+        }
+        while ((2 * ring + 1) * (2 * ring + 1) <= index) {
+            ring++;
+        }
+        long offset = index - (2 * ring - 1) * (2 * ring - 1);
+        long side = offset / (2 * ring);
+        long position = offset % (2 * ring);
+        int k = (int) ring;
+        int p = (int) position;
+        switch ((int) side) {
+            case 0:
+                return new int[] {k, -k + 1 + p};
+            case 1:
+                return new int[] {k - 1 - p, k};
+            case 2:
+                return new int[] {-k, k - 1 - p};
+            default:
+                return new int[] {-k + 1 + p, -k};
+        }
+    }
+
+    private static String formatDuration(long seconds) {
+        if (seconds >= 3600) {
+            return (seconds / 3600) + "h " + (seconds % 3600 / 60) + "m";
+        }
+        if (seconds >= 60) {
+            return (seconds / 60) + "m " + (seconds % 60) + "s";
+        }
+        return seconds + "s";
+    }
+
+    /**
+     * A pregeneration run and its progress
+     */
+    private static class Job {
+        private final String worldName;
+        private final int centerX;
+        private final int centerZ;
+        private final int radius;
+        private long nextIndex;
+        private long generated;
+        private long skipped;
+        private long failed;
+        private boolean running;
+
+        Job(String worldName, int centerX, int centerZ, int radius) {
+            this.worldName = worldName;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.radius = radius;
+        }
+
+        long getTotal() {
+            long side = 2L * radius + 1;
+            return side * side;
+        }
+
+        long getRemaining() {
+            return Math.max(0, getTotal() - nextIndex);
+        }
+
+        /**
+         * @return Share of the spiral walked so far, including the chunks still queued
+         */
+        double getProgress() {
+            return (double) nextIndex / getTotal();
+        }
+
+        String describeProgress() {
+            return String.format("%.1f%%", getProgress() * 100) + " (" + nextIndex + "/" + getTotal() + " chunks)";
+        }
+    }
+
+    /**
+     * A chunk submitted to the queue whose load has not been counted yet
+     */
+    private static class Pending {
+        private final long index;
+        private final int x;
+        private final int z;
+        private PreloadRequest request; // null while waiting to be submitted again
+        private boolean settled;
+        private boolean failed;
+        private long skippedAfter; // Already generated chunks walked after this one, counted with it
+
+        Pending(long index, int x, int z) {
+            this.index = index;
+            this.x = x;
+            this.z = z;
+        }
+    }
+}
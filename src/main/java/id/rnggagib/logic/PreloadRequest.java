@@ -0,0 +1,94 @@
+package id.rnggagib.logic;
+
+import id.rnggagib.api.PreloadHandle;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the progress of a preload request made through the API
+ * Once the request is cancelled or fails, its chunks still waiting are taken off the queues
+ */
+class PreloadRequest implements PreloadHandle {
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final AtomicInteger loadedChunks = new AtomicInteger(0);
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final int totalChunks;
+    private final long deadline; // Absolute time in milliseconds, 0 = no deadline
+
+    /**
+     * @param manager The manager queueing the chunks, null if the caller withdraws them itself
+     * @param totalChunks The number of chunks in the request
+     * @param deadline Absolute time in milliseconds, 0 = no deadline
+     */
+    PreloadRequest(ChunkLoadManager manager, int totalChunks, long deadline) {
+        this.totalChunks = totalChunks;
+        this.deadline = deadline;
+        if (totalChunks == 0) {
+            future.complete(null);
+        } else if (manager != null) {
+            // Also covers callers cancelling or failing the future directly
+            future.whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    manager.withdrawRequests(Collections.singleton(this));
+                }
+            });
+        }
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return true if the deadline of this request has passed
+     */
+    boolean isExpired(long now) {
+        return deadline > 0 && now > deadline;
+    }
+
+    void chunkLoaded() {
+        if (loadedChunks.incrementAndGet() >= totalChunks) {
+            future.complete(null);
+        }
+    }
+
+    void chunkExpired() {
+        future.completeExceptionally(new TimeoutException("Preload deadline passed before all chunks were loaded"));
+    }
+
+    void chunkFailed(Throwable cause) {
+        future.completeExceptionally(cause);
+    }
+
+    @Override
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    @Override
+    public boolean cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return false;
+        }
+        return future.cancel(false);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    @Override
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    @Override
+    public int getLoadedChunks() {
+        return loadedChunks.get();
+    }
+}
@@ -0,0 +1,193 @@
+package id.rnggagib.logic;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Rail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Follows a rail line block by block to find the chunks a minecart will pass through
+ * Only reads blocks in chunks that are already loaded, so tracing never triggers a load itself
+ * Must be called from the main thread
+ */
+public class RailTracer {
+
+    private RailTracer() {
+    }
+
+    /**
+     * Trace a rail line starting at the given block position
+     * @param world The world
+     * @param startX Block X of the minecart
+     * @param startY Block Y of the minecart
+     * @param startZ Block Z of the minecart
+     * @param velocityX Minecart X velocity, used to pick the travel direction on the first rail
+     * @param velocityZ Minecart Z velocity, used to pick the travel direction on the first rail
+     * @param maxBlocks Maximum number of rail blocks to follow
+     * @return The trace result, or null if the minecart is not on a rail
+     */
+    public static TraceResult trace(World world, int startX, int startY, int startZ,
+                                    double velocityX, double velocityZ, int maxBlocks) {
+        Block current = findRail(world, startX, startY, startZ);
+        if (current == null) {
+            return null;
+        }
+
+        BlockFace heading = pickInitialHeading(((Rail) current.getBlockData()).getShape(), velocityX, velocityZ);
+        if (heading == null) {
+            return null;
+        }
+
+        TraceResult result = new TraceResult();
+        int lastChunkX = current.getX() >> 4;
+        int lastChunkZ = current.getZ() >> 4;
+        result.addChunk(lastChunkX, lastChunkZ);
+
+        for (int step = 0; step < maxBlocks; step++) {
+            int nextX = current.getX() + heading.getModX();
+            int nextZ = current.getZ() + heading.getModZ();
+            if (!world.isChunkLoaded(nextX >> 4, nextZ >> 4)) {
+                // Reached the edge of loaded terrain, the caller extrapolates from here
+                break;
+            }
+
+            Block next = findRail(world, nextX, current.getY(), nextZ);
+            if (next == null) {
+                result.endOfLine = true;
+                break;
+            }
+
+            BlockFace exit = exitFor(((Rail) next.getBlockData()).getShape(), heading);
+            if (exit == null) {
+                result.endOfLine = true;
+                break;
+            }
+
+            current = next;
+            heading = exit;
+
+            int chunkX = current.getX() >> 4;
+            int chunkZ = current.getZ() >> 4;
+            if (chunkX != lastChunkX || chunkZ != lastChunkZ) {
+                result.addChunk(chunkX, chunkZ);
+                lastChunkX = chunkX;
+                lastChunkZ = chunkZ;
+            }
+        }
+
+        result.endBlockX = current.getX();
+        result.endBlockZ = current.getZ();
+        result.heading = heading;
+        return result;
+    }
+
+    /**
+     * Find a rail at the given position, also checking one block up and down for slopes
+     */
+    private static Block findRail(World world, int x, int y, int z) {
+        for (int dy : new int[] {0, -1, 1}) {
+            Block block = world.getBlockAt(x, y + dy, z);
+            BlockData data = block.getBlockData();
+            if (data instanceof Rail) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pick which end of the first rail the minecart is heading towards
+     */
+    private static BlockFace pickInitialHeading(Rail.Shape shape, double velocityX, double velocityZ) {
+        BlockFace[] ends = endsOf(shape);
+        double first = ends[0].getModX() * velocityX + ends[0].getModZ() * velocityZ;
+        double second = ends[1].getModX() * velocityX + ends[1].getModZ() * velocityZ;
+        if (first == 0 && second == 0) {
+            return null;
+        }
+        return first >= second ? ends[0] : ends[1];
+    }
+
+    /**
+     * Get the direction a minecart leaves a rail when entering it while travelling along heading
+     * @return The exit direction, or null if the rail does not connect back to where we came from
+     */
+    private static BlockFace exitFor(Rail.Shape shape, BlockFace heading) {
+        BlockFace entry = heading.getOppositeFace();
+        BlockFace[] ends = endsOf(shape);
+        if (ends[0] == entry) {
+            return ends[1];
+        }
+        if (ends[1] == entry) {
+            return ends[0];
+        }
+        return null;
+    }
+
+    /**
+     * Get the two horizontal directions a rail shape connects
+     */
+    private static BlockFace[] endsOf(Rail.Shape shape) {
+        switch (shape) {
+            case EAST_WEST:
+            case ASCENDING_EAST:
+            case ASCENDING_WEST:
+                return new BlockFace[] {BlockFace.EAST, BlockFace.WEST};
+            case NORTH_EAST:
+                return new BlockFace[] {BlockFace.NORTH, BlockFace.EAST};
+            case NORTH_WEST:
+                return new BlockFace[] {BlockFace.NORTH, BlockFace.WEST};
+            case SOUTH_EAST:
+                return new BlockFace[] {BlockFace.SOUTH, BlockFace.EAST};
+            case SOUTH_WEST:
+                return new BlockFace[] {BlockFace.SOUTH, BlockFace.WEST};
+            case NORTH_SOUTH:
+            case ASCENDING_NORTH:
+            case ASCENDING_SOUTH:
+            default:
+                return new BlockFace[] {BlockFace.NORTH, BlockFace.SOUTH};
+        }
+    }
+
+    /**
+     * Chunks visited by a rail trace, in travel order
+     */
+    public static class TraceResult {
+        private final List<int[]> chunks = new ArrayList<>();
+        private int endBlockX;
+        private int endBlockZ;
+        private BlockFace heading;
+        private boolean endOfLine;
+
+        private void addChunk(int chunkX, int chunkZ) {
+            chunks.add(new int[] {chunkX, chunkZ});
+        }
+
+        public List<int[]> getChunks() {
+            return chunks;
+        }
+
+        public int getEndBlockX() {
+            return endBlockX;
+        }
+
+        public int getEndBlockZ() {
+            return endBlockZ;
+        }
+
+        public BlockFace getHeading() {
+            return heading;
+        }
+
+        /**
+         * @return true if the rail line ended (or broke) before reaching unloaded terrain
+         */
+        public boolean isEndOfLine() {
+            return endOfLine;
+        }
+    }
+}
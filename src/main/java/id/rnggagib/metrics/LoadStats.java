@@ -0,0 +1,198 @@
+package id.rnggagib.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load statistics shown by /pcl stats and logged in debug mode
+ *
+ * Loads and load times are counted in a fixed ring of one slot per minute covering the last hour.
+ * Each slot packs the minute it belongs to into the high half and the value into the low half of one long,
+ * so a slot is claimed for a new minute and counted into with the same compare-and-set, without locks.
+ * The priority distribution is kept in striped LongAdder cells per priority.
+ * All methods are thread-safe, readers get a consistent copy through {@link #snapshot(long)}.
+ */
+public class LoadStats {
+    /**
+     * Number of minutes of history kept
+     */
+    public static final int MINUTES = 60;
+
+    private static final long MINUTE_MILLIS = 60000L;
+    private static final long VALUE_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLongArray loadedPerMinute = new AtomicLongArray(MINUTES);
+    private final AtomicLongArray loadTimePerMinute = new AtomicLongArray(MINUTES);
+    private final LongAdder totalLoaded = new LongAdder();
+    private final Map<Integer, LongAdder> priorityDistribution = new ConcurrentHashMap<>();
+
+    /**
+     * Count a completed chunk load
+     * @param nowMillis The current time in milliseconds
+     * @param loadTimeMillis How long the load took
+     */
+    public void recordLoaded(long nowMillis, long loadTimeMillis) {
+        long minute = nowMillis / MINUTE_MILLIS;
+        add(loadedPerMinute, minute, 1);
+        add(loadTimePerMinute, minute, Math.max(0, loadTimeMillis));
+        totalLoaded.increment();
+    }
+
+    /**
+     * Count a chunk of the given priority for the priority distribution
+     * @param priority The loading priority
+     */
+    public void recordPriority(int priority) {
+        LongAdder counter = priorityDistribution.get(priority);
+        if (counter == null) {
+            counter = priorityDistribution.computeIfAbsent(priority, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Take the priority distribution counted since the last call and start a new one
+     * Counts that race with the reset are kept for the next call rather than lost
+     * @return Counts per priority, in ascending priority order
+     */
+    public Map<Integer, Long> drainPriorityDistribution() {
+        Map<Integer, Long> drained = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : priorityDistribution.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count > 0) {
+                drained.put(entry.getKey(), count);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Add to the slot of the given minute, taking the slot over if it still holds an older minute
+     */
+    private static void add(AtomicLongArray ring, long minute, long amount) {
+        int slot = (int) (minute % MINUTES);
+        while (true) {
+            long current = ring.get(slot);
+            long slotMinute = current >>> 32;
+            long updated;
+            if (slotMinute == minute) {
+                updated = (minute << 32) | Math.min(VALUE_MASK, (current & VALUE_MASK) + amount);
+            } else if (slotMinute < minute) {
+                updated = (minute << 32) | Math.min(VALUE_MASK, amount);
+            } else {
+                // A slower thread from a minute that has already been rolled past, too late to count
+                return;
+            }
+            if (ring.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read the value a ring holds for the given minute
+     * @return The value, 0 if the slot has been reused or never written
+     */
+    private static long valueAt(AtomicLongArray ring, long minute) {
+        long current = ring.get((int) (minute % MINUTES));
+        return (current >>> 32) == minute ? current & VALUE_MASK : 0;
+    }
+
+    /**
+     * Copy the current statistics
+     * @param nowMillis The current time in milliseconds
+     * @return The snapshot
+     */
+    public Snapshot snapshot(long nowMillis) {
+        long minute = nowMillis / MINUTE_MILLIS;
+        long[] loaded = new long[MINUTES];
+        long loadedLastHour = 0;
+        for (int i = 0; i < MINUTES; i++) {
+            loaded[i] = valueAt(loadedPerMinute, minute - (MINUTES - 1) + i);
+            loadedLastHour += loaded[i];
+        }
+
+        // Sliding window over the last sixty seconds, the previous minute weighted by how much of it is still inside
+        double elapsed = (nowMillis % MINUTE_MILLIS) / (double) MINUTE_MILLIS;
+        long current = loaded[MINUTES - 1];
+        long previous = loaded[MINUTES - 2];
+        long loadedLastMinute = current + Math.round(previous * (1.0 - elapsed));
+
+        long recentLoads = current + previous;
+        long recentLoadTime = valueAt(loadTimePerMinute, minute) + valueAt(loadTimePerMinute, minute - 1);
+        double averageLoadTime = recentLoads > 0 ? (double) recentLoadTime / recentLoads : 0.0;
+
+        Map<Integer, Long> priorities = new TreeMap<>();
+        priorityDistribution.forEach((priority, counter) -> {
+            long count = counter.sum();
+            if (count > 0) {
+                priorities.put(priority, count);
+            }
+        });
+
+        return new Snapshot(totalLoaded.sum(), loadedLastMinute, loadedLastHour, averageLoadTime, loaded, priorities);
+    }
+
+    /**
+     * Immutable copy of the statistics at one point in time
+     */
+    public static class Snapshot {
+        private final long totalLoaded;
+        private final long loadedLastMinute;
+        private final long loadedLastHour;
+        private final double averageLoadTimeMs;
+        private final long[] loadedPerMinute;
+        private final Map<Integer, Long> priorityDistribution;
+
+        private Snapshot(long totalLoaded, long loadedLastMinute, long loadedLastHour, double averageLoadTimeMs,
+                         long[] loadedPerMinute, Map<Integer, Long> priorityDistribution) {
+            this.totalLoaded = totalLoaded;
+            this.loadedLastMinute = loadedLastMinute;
+            this.loadedLastHour = loadedLastHour;
+            this.averageLoadTimeMs = averageLoadTimeMs;
+            this.loadedPerMinute = loadedPerMinute;
+            this.priorityDistribution = Collections.unmodifiableMap(priorityDistribution);
+        }
+
+        public long getTotalLoaded() {
+            return totalLoaded;
+        }
+
+        /**
+         * @return Chunks loaded during the last sixty seconds
+         */
+        public long getLoadedLastMinute() {
+            return loadedLastMinute;
+        }
+
+        public long getLoadedLastHour() {
+            return loadedLastHour;
+        }
+
+        /**
+         * @return Average load time over the current and the previous minute
+         */
+        public double getAverageLoadTimeMs() {
+            return averageLoadTimeMs;
+        }
+
+        /**
+         * @param minutesAgo 0 for the current minute, up to {@link #MINUTES} - 1
+         * @return Chunks loaded during that minute
+         */
+        public long getLoadedMinutesAgo(int minutesAgo) {
+            return loadedPerMinute[MINUTES - 1 - minutesAgo];
+        }
+
+        /**
+         * @return Counts per priority since the distribution was last drained, in ascending priority order
+         */
+        public Map<Integer, Long> getPriorityDistribution() {
+            return priorityDistribution;
+        }
+    }
+}
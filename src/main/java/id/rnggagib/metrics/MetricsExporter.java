@@ -0,0 +1,130 @@
+package id.rnggagib.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Exposes the metrics registry to Prometheus
+ * Either through an embedded HTTP endpoint or a file for the node exporter textfile collector
+ */
+public class MetricsExporter {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final JavaPlugin plugin;
+    private final Logger logger;
+    private final MetricsRegistry registry;
+    private final Executor executor;
+    private HttpServer httpServer;
+    private BukkitTask textfileTask;
+
+    /**
+     * @param plugin The plugin
+     * @param registry The metrics to export
+     * @param executor Renders and writes the metrics, away from the main thread
+     */
+    public MetricsExporter(JavaPlugin plugin, MetricsRegistry registry, Executor executor) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.registry = registry;
+        this.executor = executor;
+    }
+
+    /**
+     * Start the exporters enabled in the metrics section of config.yml
+     */
+    public void start() {
+        stop();
+
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("metrics");
+        if (config == null || !config.getBoolean("enabled", false)) {
+            return;
+        }
+
+        if (config.getBoolean("http.enabled", false)) {
+            startHttp(config.getString("http.host", "127.0.0.1"), config.getInt("http.port", 9465));
+        }
+        if (config.getBoolean("textfile.enabled", false)) {
+            startTextfile(config.getString("textfile.path", "metrics/proactivechunkloader.prom"),
+                Math.max(1, config.getInt("textfile.interval-seconds", 15)));
+        }
+    }
+
+    /**
+     * Stop all running exporters
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+            logger.info("Metrics endpoint stopped");
+        }
+        if (textfileTask != null && !textfileTask.isCancelled()) {
+            textfileTask.cancel();
+        }
+        textfileTask = null;
+    }
+
+    private void startHttp(String host, int port) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            logger.warning("Failed to start metrics endpoint on " + host + ":" + port + ": " + e.getMessage());
+            return;
+        }
+
+        httpServer.createContext("/metrics", exchange -> {
+            byte[] body = registry.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // Requests are served on the plugin's bookkeeping executor, away from the main thread
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        logger.info("Metrics endpoint listening on http://" + host + ":" + port + "/metrics");
+    }
+
+    private void startTextfile(String path, int intervalSeconds) {
+        File file = new File(path);
+        if (!file.isAbsolute()) {
+            file = new File(plugin.getDataFolder(), path);
+        }
+        final Path target = file.toPath();
+        final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        // The timer only hands the write to the executor
+        Runnable write = () -> {
+            try {
+                Files.createDirectories(target.getParent());
+                Files.write(temp, registry.render().getBytes(StandardCharsets.UTF_8));
+                // Atomic move so the collector never reads a half-written file
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warning("Failed to write metrics file " + target + ": " + e.getMessage());
+            }
+        };
+        textfileTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                executor.execute(write);
+            }
+        }.runTaskTimer(plugin, 20L, intervalSeconds * 20L);
+        logger.info("Writing metrics to " + target + " every " + intervalSeconds + "s");
+    }
+}
@@ -0,0 +1,259 @@
+package id.rnggagib.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of plugin metrics, rendered in the Prometheus/OpenMetrics text format
+ * Recording only touches LongAdder cells, so hot paths never lock or allocate
+ */
+public class MetricsRegistry {
+    private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+    /**
+     * Register a monotonically increasing counter
+     * @param name The metric name
+     * @param help The help text
+     * @return The counter
+     */
+    public Counter counter(String name, String help) {
+        Counter counter = new Counter(name, help);
+        metrics.add(counter);
+        return counter;
+    }
+
+    /**
+     * Register a counter split by the value of a single label
+     * @param name The metric name
+     * @param help The help text
+     * @param labelName The name of the label
+     * @return The labeled counter
+     */
+    public LabeledCounter labeledCounter(String name, String help, String labelName) {
+        LabeledCounter counter = new LabeledCounter(name, help, labelName);
+        metrics.add(counter);
+        return counter;
+    }
+
+    /**
+     * Register a gauge whose value is read when the metrics are rendered
+     * @param name The metric name
+     * @param help The help text
+     * @param supplier Supplies the current value
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier) {
+        metrics.add(new Gauge(name, help, supplier));
+    }
+
+    /**
+     * Register a histogram with fixed upper bucket bounds
+     * @param name The metric name
+     * @param help The help text
+     * @param bounds Upper bounds of the buckets in ascending order, +Inf is added automatically
+     * @return The histogram
+     */
+    public Histogram histogram(String name, String help, double... bounds) {
+        Histogram histogram = new Histogram(name, help, bounds);
+        metrics.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Render every metric in the Prometheus text exposition format
+     * @return The rendered metrics
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Metric metric : metrics) {
+            sb.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+            sb.append("# TYPE ").append(metric.name).append(' ').append(metric.type()).append('\n');
+            metric.write(sb);
+        }
+        return sb.toString();
+    }
+
+    private static void appendValue(StringBuilder sb, double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Base class of all metrics
+     */
+    private abstract static class Metric {
+        final String name;
+        final String help;
+
+        Metric(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        abstract String type();
+
+        abstract void write(StringBuilder sb);
+    }
+
+    /**
+     * Counter that only goes up
+     */
+    public static class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String help) {
+            super(name, help);
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            sb.append(name).append(' ').append(value.sum()).append('\n');
+        }
+    }
+
+    /**
+     * Counter with one label, one LongAdder per label value
+     */
+    public static class LabeledCounter extends Metric {
+        private final String labelName;
+        private final Map<String, LongAdder> values = new ConcurrentHashMap<>();
+
+        private LabeledCounter(String name, String help, String labelName) {
+            super(name, help);
+            this.labelName = labelName;
+        }
+
+        public void increment(String labelValue) {
+            // get() first so the common path does not allocate a lambda capture
+            LongAdder adder = values.get(labelValue);
+            if (adder == null) {
+                adder = values.computeIfAbsent(labelValue, k -> new LongAdder());
+            }
+            adder.increment();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            for (Map.Entry<String, LongAdder> entry : values.entrySet()) {
+                sb.append(name).append('{').append(labelName).append("=\"")
+                    .append(escapeLabel(entry.getKey())).append("\"} ")
+                    .append(entry.getValue().sum()).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Gauge backed by a supplier
+     */
+    private static class Gauge extends Metric {
+        private final DoubleSupplier supplier;
+
+        private Gauge(String name, String help, DoubleSupplier supplier) {
+            super(name, help);
+            this.supplier = supplier;
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            sb.append(name).append(' ');
+            appendValue(sb, supplier.getAsDouble());
+            sb.append('\n');
+        }
+    }
+
+    /**
+     * Histogram with fixed buckets, cumulative counts are computed when rendering
+     */
+    public static class Histogram extends Metric {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(String name, String help, double[] bounds) {
+            super(name, help);
+            this.bounds = bounds.clone();
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Record an observation
+         * @param value The observed value, in the metric's base unit
+         */
+        public void observe(double value) {
+            int index = 0;
+            while (index < bounds.length && value > bounds[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            sum.add(value);
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            List<Long> counts = new ArrayList<>(buckets.length);
+            for (LongAdder bucket : buckets) {
+                counts.add(bucket.sum());
+            }
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += counts.get(i);
+                sb.append(name).append("_bucket{le=\"");
+                appendValue(sb, bounds[i]);
+                sb.append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += counts.get(bounds.length);
+            sb.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            sb.append(name).append("_sum ");
+            appendValue(sb, sum.sum());
+            sb.append('\n');
+            sb.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package id.rnggagib.platform;
+
+import id.rnggagib.api.event.ChunkPreloadedEvent;
+import id.rnggagib.api.event.FrontierPlannedEvent;
+import id.rnggagib.api.event.PreloadDroppedEvent;
+import id.rnggagib.logic.LoaderPlatform;
+import id.rnggagib.logic.LoaderPlayer;
+import id.rnggagib.logic.LoaderScheduler;
+import id.rnggagib.logic.LoaderWorld;
+import id.rnggagib.logic.MovementMode;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * The loader's view of a running Paper server
+ */
+public class BukkitPlatform implements LoaderPlatform {
+    private final JavaPlugin plugin;
+    private final LoaderScheduler scheduler;
+
+    public BukkitPlatform(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.scheduler = new Scheduler(plugin);
+    }
+
+    @Override
+    public Logger getLogger() {
+        return plugin.getLogger();
+    }
+
+    @Override
+    public ConfigurationSection getConfig() {
+        return plugin.getConfig();
+    }
+
+    @Override
+    public void saveDefaultConfig() {
+        plugin.saveDefaultConfig();
+    }
+
+    @Override
+    public File getDataFolder() {
+        return plugin.getDataFolder();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return plugin.isEnabled();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public LoaderScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public int getViewDistance() {
+        return plugin.getServer().getViewDistance();
+    }
+
+    @Override
+    public double getTps() {
+        return plugin.getServer().getTPS()[0];
+    }
+
+    @Override
+    public double getAverageTickTime() {
+        return plugin.getServer().getAverageTickTime();
+    }
+
+    @Override
+    public Collection<? extends LoaderPlayer> getOnlinePlayers() {
+        Collection<? extends Player> online = plugin.getServer().getOnlinePlayers();
+        List<LoaderPlayer> players = new ArrayList<>(online.size());
+        for (Player player : online) {
+            players.add(new BukkitPlayer(player));
+        }
+        return players;
+    }
+
+    @Override
+    public LoaderPlayer getPlayer(UUID playerId) {
+        Player player = plugin.getServer().getPlayer(playerId);
+        return player != null ? new BukkitPlayer(player) : null;
+    }
+
+    @Override
+    public List<? extends LoaderWorld> getWorlds() {
+        List<LoaderWorld> worlds = new ArrayList<>();
+        for (World world : plugin.getServer().getWorlds()) {
+            worlds.add(new BukkitWorld(world));
+        }
+        return worlds;
+    }
+
+    @Override
+    public LoaderWorld getWorld(String name) {
+        World world = plugin.getServer().getWorld(name);
+        return world != null ? new BukkitWorld(world) : null;
+    }
+
+    @Override
+    public void fireChunkPreloaded(LoaderWorld world, int x, int z, int priority, long loadTimeMs) {
+        if (hasListeners(ChunkPreloadedEvent.getHandlerList())) {
+            callEvent(new ChunkPreloadedEvent(((BukkitWorld) world).getHandle(), x, z, priority, loadTimeMs));
+        }
+    }
+
+    @Override
+    public void firePreloadDropped(LoaderWorld world, int x, int z, PreloadDroppedEvent.Reason reason) {
+        if (hasListeners(PreloadDroppedEvent.getHandlerList())) {
+            callEvent(new PreloadDroppedEvent(((BukkitWorld) world).getHandle(), x, z, reason));
+        }
+    }
+
+    @Override
+    public void fireFrontierPlanned(LoaderPlayer player, MovementMode mode, int queuedChunks) {
+        if (hasListeners(FrontierPlannedEvent.getHandlerList())) {
+            callEvent(new FrontierPlannedEvent(((BukkitPlayer) player).getHandle(), mode, queuedChunks));
+        }
+    }
+
+    /**
+     * Check whether any plugin listens to an event, so it is only constructed when needed
+     */
+    private boolean hasListeners(HandlerList handlers) {
+        return handlers.getRegisteredListeners().length > 0;
+    }
+
+    private void callEvent(Event event) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getPluginManager().callEvent(event);
+        }
+    }
+
+    /**
+     * Runs the loader's tasks on the Bukkit scheduler
+     */
+    private static class Scheduler implements LoaderScheduler {
+        private final JavaPlugin plugin;
+
+        Scheduler(JavaPlugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public Task runTimer(Runnable task, long delayTicks, long periodTicks) {
+            return wrap(runnable(task).runTaskTimer(plugin, delayTicks, periodTicks));
+        }
+
+        @Override
+        public Task runTimerAsync(Runnable task, long delayTicks, long periodTicks) {
+            return wrap(runnable(task).runTaskTimerAsynchronously(plugin, delayTicks, periodTicks));
+        }
+
+        @Override
+        public Task runTask(Runnable task) {
+            return wrap(runnable(task).runTask(plugin));
+        }
+
+        @Override
+        public Task runAsync(Runnable task) {
+            return wrap(runnable(task).runTaskAsynchronously(plugin));
+        }
+
+        private static BukkitRunnable runnable(Runnable task) {
+            return new BukkitRunnable() {
+                @Override
+                public void run() {
+                    task.run();
+                }
+            };
+        }
+
+        private static Task wrap(BukkitTask task) {
+            return new Task() {
+                @Override
+                public void cancel() {
+                    task.cancel();
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return task.isCancelled();
+                }
+            };
+        }
+    }
+}
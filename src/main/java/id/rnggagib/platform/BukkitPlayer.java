@@ -0,0 +1,97 @@
+package id.rnggagib.platform;
+
+import id.rnggagib.logic.LoaderPlayer;
+import id.rnggagib.logic.LoaderWorld;
+import id.rnggagib.logic.MovementMode;
+import org.bukkit.Location;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import java.util.UUID;
+
+/**
+ * A Bukkit player as seen by the loader
+ * Position and velocity are read once when the wrapper is created, so create one per use on the main thread
+ */
+public class BukkitPlayer implements LoaderPlayer {
+    private final Player player;
+    private final Location location;
+    private final Vector velocity;
+
+    public BukkitPlayer(Player player) {
+        this.player = player;
+        this.location = player.getLocation();
+        this.velocity = player.getVelocity();
+    }
+
+    /**
+     * @return The wrapped player
+     */
+    public Player getHandle() {
+        return player;
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return player.getUniqueId();
+    }
+
+    @Override
+    public String getName() {
+        return player.getName();
+    }
+
+    @Override
+    public LoaderWorld getWorld() {
+        return new BukkitWorld(location.getWorld());
+    }
+
+    @Override
+    public double getX() {
+        return location.getX();
+    }
+
+    @Override
+    public double getY() {
+        return location.getY();
+    }
+
+    @Override
+    public double getZ() {
+        return location.getZ();
+    }
+
+    @Override
+    public double getVelocityX() {
+        return velocity.getX();
+    }
+
+    @Override
+    public double getVelocityZ() {
+        return velocity.getZ();
+    }
+
+    @Override
+    public BlockFace getFacing() {
+        return player.getFacing();
+    }
+
+    @Override
+    public MovementMode getMode() {
+        return MovementMode.detect(player);
+    }
+
+    @Override
+    public double[] getVehicleMotion() {
+        Entity vehicle = player.getVehicle();
+        if (vehicle == null) {
+            return null;
+        }
+        Location vehicleLocation = vehicle.getLocation();
+        Vector vehicleVelocity = vehicle.getVelocity();
+        return new double[] {vehicleLocation.getX(), vehicleLocation.getY(), vehicleLocation.getZ(),
+            vehicleVelocity.getX(), vehicleVelocity.getZ()};
+    }
+}
@@ -0,0 +1,84 @@
+package id.rnggagib.platform;
+
+import id.rnggagib.logic.LoaderWorld;
+import id.rnggagib.logic.RailTracer;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Bukkit world as seen by the loader, equal to every other wrapper of the same world
+ */
+public class BukkitWorld implements LoaderWorld {
+    private final World world;
+
+    public BukkitWorld(World world) {
+        this.world = world;
+    }
+
+    /**
+     * @return The wrapped world
+     */
+    public World getHandle() {
+        return world;
+    }
+
+    @Override
+    public String getName() {
+        return world.getName();
+    }
+
+    @Override
+    public UUID getUID() {
+        return world.getUID();
+    }
+
+    @Override
+    public CompletableFuture<?> loadChunkAsync(int x, int z) {
+        // Paper completes the future on the main thread
+        return world.getChunkAtAsync(x, z);
+    }
+
+    @Override
+    public boolean isChunkGenerated(int x, int z) {
+        return world.isChunkGenerated(x, z);
+    }
+
+    @Override
+    public int[] getSpawnChunk() {
+        Location spawn = world.getSpawnLocation();
+        return new int[] {spawn.getBlockX() >> 4, spawn.getBlockZ() >> 4};
+    }
+
+    @Override
+    public List<int[]> getLoadedChunks() {
+        Chunk[] chunks = world.getLoadedChunks();
+        List<int[]> coordinates = new ArrayList<>(chunks.length);
+        for (Chunk chunk : chunks) {
+            coordinates.add(new int[] {chunk.getX(), chunk.getZ()});
+        }
+        return coordinates;
+    }
+
+    @Override
+    public RailTracer.TraceResult traceRail(int x, int y, int z, double velocityX, double velocityZ, int maxBlocks) {
+        return RailTracer.trace(world, x, y, z, velocityX, velocityZ, maxBlocks);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return world.getUID().equals(((BukkitWorld) o).world.getUID());
+    }
+
+    @Override
+    public int hashCode() {
+        return world.getUID().hashCode();
+    }
+}
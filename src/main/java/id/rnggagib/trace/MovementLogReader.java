@@ -0,0 +1,229 @@
+package id.rnggagib.trace;
+
+import id.rnggagib.logic.MovementMode;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Streams the samples of a movement log written by {@link MovementRecorder}
+ *
+ * File format: a header (int magic "PCLM", byte version, long start time in ms) followed by records.
+ * Every record starts with a type byte. Player records carry a varint id, the UUID and the name,
+ * world records a varint id and the name. Sample records carry the varint player and world ids,
+ * a mode byte, then zigzag varints: time, x, y and z as deltas from the player's previous sample
+ * in the same file, and the velocity as absolute values.
+ */
+public class MovementLogReader implements Closeable {
+    private static final MovementMode[] MODES = MovementMode.values();
+
+    private final DataInputStream input;
+    private final long startTime;
+    private final Map<Integer, UUID> playerUuids = new HashMap<>();
+    private final Map<Integer, String> playerNames = new HashMap<>();
+    private final Map<Integer, String> worldNames = new HashMap<>();
+    private final Map<Integer, long[]> lastSamples = new HashMap<>();
+
+    /**
+     * @param path The log file
+     * @throws IOException If the file cannot be opened or is not a movement log
+     */
+    public MovementLogReader(Path path) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        try {
+            if (input.readInt() != MovementRecorder.MAGIC) {
+                throw new IOException(path + " is not a movement log");
+            }
+            int version = input.readByte();
+            if (version != MovementRecorder.VERSION) {
+                throw new IOException("Unsupported movement log version " + version + " in " + path);
+            }
+            this.startTime = input.readLong();
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return When the file was started, in milliseconds since the epoch
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Read the next sample, skipping over definition records
+     * A sample cut off by a crash at the end of the file is treated as the end of the log
+     * @return The sample, or null at the end of the file
+     * @throws IOException If the file cannot be read or is corrupt
+     */
+    public RecordedSample next() throws IOException {
+        while (true) {
+            int type;
+            try {
+                type = input.readByte();
+            } catch (EOFException e) {
+                return null;
+            }
+
+            try {
+                switch (type) {
+                    case MovementRecorder.RECORD_PLAYER: {
+                        int id = (int) readVarLong();
+                        playerUuids.put(id, new UUID(input.readLong(), input.readLong()));
+                        playerNames.put(id, readString());
+                        break;
+                    }
+                    case MovementRecorder.RECORD_WORLD: {
+                        int id = (int) readVarLong();
+                        worldNames.put(id, readString());
+                        break;
+                    }
+                    case MovementRecorder.RECORD_SAMPLE:
+                        return readSample();
+                    default:
+                        throw new IOException("Unknown record type " + type);
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+    }
+
+    private RecordedSample readSample() throws IOException {
+        int player = (int) readVarLong();
+        int world = (int) readVarLong();
+        int mode = input.readByte();
+        long[] last = lastSamples.computeIfAbsent(player, id -> new long[4]);
+        last[0] += unzigzag(readVarLong());
+        last[1] += unzigzag(readVarLong());
+        last[2] += unzigzag(readVarLong());
+        last[3] += unzigzag(readVarLong());
+        long velocityX = unzigzag(readVarLong());
+        long velocityZ = unzigzag(readVarLong());
+
+        if (!playerUuids.containsKey(player) || !worldNames.containsKey(world) || mode < 0 || mode >= MODES.length) {
+            throw new IOException("Sample references an undefined player, world or mode");
+        }
+        return new RecordedSample(playerUuids.get(player), playerNames.get(player), worldNames.get(world), last[0],
+            last[1] / MovementRecorder.POSITION_SCALE, last[2] / MovementRecorder.POSITION_SCALE,
+            last[3] / MovementRecorder.POSITION_SCALE, velocityX / MovementRecorder.VELOCITY_SCALE,
+            velocityZ / MovementRecorder.VELOCITY_SCALE, MODES[mode]);
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[(int) readVarLong()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = input.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * A single decoded movement sample
+     */
+    public static class RecordedSample {
+        private final UUID playerId;
+        private final String playerName;
+        private final String world;
+        private final long timeMs;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double velocityX;
+        private final double velocityZ;
+        private final MovementMode mode;
+
+        RecordedSample(UUID playerId, String playerName, String world, long timeMs, double x, double y, double z,
+                       double velocityX, double velocityZ, MovementMode mode) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.world = world;
+            this.timeMs = timeMs;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.velocityX = velocityX;
+            this.velocityZ = velocityZ;
+            this.mode = mode;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        /**
+         * @return The sample time in milliseconds since the epoch
+         */
+        public long getTimeMs() {
+            return timeMs;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getZ() {
+            return z;
+        }
+
+        /**
+         * @return X velocity in blocks per tick
+         */
+        public double getVelocityX() {
+            return velocityX;
+        }
+
+        /**
+         * @return Z velocity in blocks per tick
+         */
+        public double getVelocityZ() {
+            return velocityZ;
+        }
+
+        public MovementMode getMode() {
+            return mode;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package id.rnggagib.trace;
+
+import id.rnggagib.logic.MovementMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Records player movement samples to compact binary logs for replay and tuning
+ *
+ * The main thread only writes a sample into a preallocated single-producer ring.
+ * A background thread drains the ring, delta-encodes each player's samples as zigzag varints
+ * and appends them to the current log file, rotating files and enforcing a total size cap.
+ * See {@link MovementLogReader} for the file format.
+ */
+public class MovementRecorder {
+    static final int MAGIC = 0x50434C4D; // "PCLM"
+    static final byte VERSION = 1;
+    static final byte RECORD_PLAYER = 1;
+    static final byte RECORD_WORLD = 2;
+    static final byte RECORD_SAMPLE = 3;
+    static final double POSITION_SCALE = 1000.0; // Positions are stored in thousandths of a block
+    static final double VELOCITY_SCALE = 1000.0; // Velocities in thousandths of a block per tick
+
+    // Longs per ring slot: ids, time, x, y, z, velocity x, velocity z
+    private static final int SLOT_SIZE = 7;
+
+    private final Logger logger;
+    private final long[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(0); // Next slot the writer reads
+    private final AtomicLong tail = new AtomicLong(0); // Next slot the main thread writes
+    private final AtomicLong droppedSamples = new AtomicLong(0);
+    private final Queue<Object[]> definitions = new ConcurrentLinkedQueue<>();
+
+    // Main thread only
+    private final Map<UUID, Integer> playerIds = new HashMap<>();
+    private final Map<String, Integer> worldIds = new HashMap<>();
+
+    // Writer thread only
+    private final Map<Integer, Object[]> playerDefinitions = new HashMap<>();
+    private final Map<Integer, String> worldDefinitions = new HashMap<>();
+    private final Map<Integer, long[]> lastSamples = new HashMap<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private FileChannel channel;
+    private long fileSize;
+
+    private volatile boolean enabled;
+    // One writer thread for the recorder's lifetime, so a restart never races the previous file's close
+    private ScheduledExecutorService writer;
+    private ScheduledFuture<?> drainTask;
+    private File settingsDirectory;
+    private long settingsRotateBytes;
+    private long settingsMaxTotalBytes;
+
+    // Writer thread only, applied in order with the drains and closes queued before them
+    private File directory;
+    private long rotateBytes;
+    private long maxTotalBytes;
+
+    /**
+     * @param logger Logger for IO errors
+     * @param capacity Number of samples the ring holds, rounded up to a power of two
+     */
+    public MovementRecorder(Logger logger, int capacity) {
+        this.logger = logger;
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.ring = new long[size * SLOT_SIZE];
+        this.mask = size - 1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Samples dropped because the writer could not keep up
+     */
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+
+    /**
+     * Start recording into the given directory, does nothing if already recording with the same settings
+     * Never waits for disk IO, so it is safe on the main thread
+     * @param directory Directory the log files are written to
+     * @param rotateBytes Size after which a new file is started
+     * @param maxTotalBytes Total size of all log files, the oldest files are deleted beyond it
+     */
+    public synchronized void start(File directory, long rotateBytes, long maxTotalBytes) {
+        if (enabled && directory.equals(settingsDirectory) && rotateBytes == settingsRotateBytes
+                && maxTotalBytes == settingsMaxTotalBytes) {
+            return;
+        }
+        stop();
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ProactiveChunkLoader-Recorder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        settingsDirectory = directory;
+        settingsRotateBytes = rotateBytes;
+        settingsMaxTotalBytes = maxTotalBytes;
+        writer.execute(() -> {
+            this.directory = directory;
+            this.rotateBytes = rotateBytes;
+            this.maxTotalBytes = maxTotalBytes;
+        });
+        drainTask = writer.scheduleWithFixedDelay(this::drain, 1, 1, TimeUnit.SECONDS);
+        enabled = true;
+        logger.info("Recording player movement to " + directory.getPath());
+    }
+
+    /**
+     * Stop recording, the writer thread flushes buffered samples and closes the current file afterwards
+     * Never waits for disk IO, so it is safe on the main thread
+     */
+    public synchronized void stop() {
+        if (drainTask == null) {
+            return;
+        }
+        enabled = false;
+        drainTask.cancel(false);
+        drainTask = null;
+        writer.execute(() -> {
+            drain();
+            closeFile();
+        });
+    }
+
+    /**
+     * Stop recording and wait for the writer thread to close the file, for plugin shutdown
+     */
+    public synchronized void shutdown() {
+        stop();
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    /**
+     * Record a movement sample, must be called from the main thread
+     * @param playerId The player's UUID
+     * @param playerName The player's name, only used the first time the player is seen
+     * @param worldName The world name
+     * @param timeMs The sample time in milliseconds
+     * @param x Position X
+     * @param y Position Y
+     * @param z Position Z
+     * @param velocityX Velocity X in blocks per tick
+     * @param velocityZ Velocity Z in blocks per tick
+     * @param mode The movement mode
+     */
+    public void record(UUID playerId, String playerName, String worldName, long timeMs,
+                       double x, double y, double z, double velocityX, double velocityZ, MovementMode mode) {
+        if (!enabled) {
+            return;
+        }
+        long position = tail.get();
+        if (position - head.get() > mask) {
+            droppedSamples.incrementAndGet();
+            return;
+        }
+
+        Integer player = playerIds.get(playerId);
+        if (player == null) {
+            player = playerIds.size();
+            playerIds.put(playerId, player);
+            definitions.offer(new Object[] {RECORD_PLAYER, player, playerId, playerName});
+        }
+        Integer world = worldIds.get(worldName);
+        if (world == null) {
+            world = worldIds.size();
+            worldIds.put(worldName, world);
+            definitions.offer(new Object[] {RECORD_WORLD, world, worldName});
+        }
+
+        int base = (int) (position & mask) * SLOT_SIZE;
+        ring[base] = ((long) world << 40) | ((long) mode.ordinal() << 32) | player;
+        ring[base + 1] = timeMs;
+        ring[base + 2] = Math.round(x * POSITION_SCALE);
+        ring[base + 3] = Math.round(y * POSITION_SCALE);
+        ring[base + 4] = Math.round(z * POSITION_SCALE);
+        ring[base + 5] = Math.round(velocityX * VELOCITY_SCALE);
+        ring[base + 6] = Math.round(velocityZ * VELOCITY_SCALE);
+        // Publishes the slot to the writer thread
+        tail.lazySet(position + 1);
+    }
+
+    /**
+     * Write every pending sample to the log, runs on the writer thread
+     */
+    private void drain() {
+        try {
+            // Read the tail first: every definition a sample before it needs was queued before that sample was
+            // published, so draining the definitions afterwards never writes a sample ahead of its definition
+            long end = tail.get();
+            Object[] definition;
+            while ((definition = definitions.poll()) != null) {
+                if ((byte) definition[0] == RECORD_PLAYER) {
+                    playerDefinitions.put((Integer) definition[1], definition);
+                } else {
+                    worldDefinitions.put((Integer) definition[1], (String) definition[2]);
+                }
+                if (channel != null) {
+                    writeDefinition(definition);
+                }
+            }
+
+            long position = head.get();
+            for (; position < end; position++) {
+                if (channel == null || fileSize >= rotateBytes) {
+                    rotate();
+                }
+                int base = (int) (position & mask) * SLOT_SIZE;
+                writeSample(ring[base], ring[base + 1], ring[base + 2], ring[base + 3], ring[base + 4],
+                    ring[base + 5], ring[base + 6]);
+                head.lazySet(position + 1);
+            }
+            flush();
+        } catch (IOException e) {
+            logger.warning("Failed to write movement recording: " + e.getMessage());
+            closeFile();
+            // Skip what could not be written so the main thread does not start dropping
+            head.set(tail.get());
+        }
+    }
+
+    private void writeSample(long ids, long time, long x, long y, long z, long velocityX, long velocityZ) throws IOException {
+        int player = (int) (ids & 0xFFFFFFFFL);
+        long[] last = lastSamples.get(player);
+        if (last == null) {
+            // First sample of the player in this file is encoded against zero
+            last = new long[4];
+            lastSamples.put(player, last);
+        }
+
+        ensureSpace(64);
+        buffer.put(RECORD_SAMPLE);
+        putVarLong(player);
+        putVarLong((ids >>> 40) & 0xFFFFFF);
+        buffer.put((byte) ((ids >>> 32) & 0xFF));
+        putVarLong(zigzag(time - last[0]));
+        putVarLong(zigzag(x - last[1]));
+        putVarLong(zigzag(y - last[2]));
+        putVarLong(zigzag(z - last[3]));
+        putVarLong(zigzag(velocityX));
+        putVarLong(zigzag(velocityZ));
+        last[0] = time;
+        last[1] = x;
+        last[2] = y;
+        last[3] = z;
+    }
+
+    private void writeDefinition(Object[] definition) throws IOException {
+        ensureSpace(512);
+        if ((byte) definition[0] == RECORD_PLAYER) {
+            UUID uuid = (UUID) definition[2];
+            buffer.put(RECORD_PLAYER);
+            putVarLong((Integer) definition[1]);
+            buffer.putLong(uuid.getMostSignificantBits());
+            buffer.putLong(uuid.getLeastSignificantBits());
+            putString((String) definition[3]);
+        } else {
+            buffer.put(RECORD_WORLD);
+            putVarLong((Integer) definition[1]);
+            putString((String) definition[2]);
+        }
+    }
+
+    /**
+     * Start a new log file, every file repeats the definitions so it can be read on its own
+     */
+    private void rotate() throws IOException {
+        closeFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory.getPath());
+        }
+        enforceSizeCap();
+
+        File file = new File(directory, "movement-" + System.currentTimeMillis() + ".pclm");
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        fileSize = 0;
+        lastSamples.clear();
+
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(System.currentTimeMillis());
+        for (Map.Entry<Integer, String> world : worldDefinitions.entrySet()) {
+            writeDefinition(new Object[] {RECORD_WORLD, world.getKey(), world.getValue()});
+        }
+        for (Object[] player : playerDefinitions.values()) {
+            writeDefinition(player);
+        }
+    }
+
+    /**
+     * Delete the oldest log files until the total size leaves room for one more file
+     */
+    private void enforceSizeCap() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".pclm"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        for (int i = 0; i < files.length && total + rotateBytes > maxTotalBytes; i++) {
+            total -= files[i].length();
+            if (!files[i].delete()) {
+                logger.warning("Failed to delete old movement recording " + files[i].getName());
+            }
+        }
+    }
+
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (channel == null) {
+            buffer.clear();
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileSize += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void closeFile() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flush();
+            channel.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close movement recording: " + e.getMessage());
+        }
+        channel = null;
+        buffer.clear();
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,65 @@
+package id.rnggagib.trace;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Logger wrapper that allows a limited number of messages per second
+ * Messages are built lazily, so suppressed messages cost no string formatting
+ */
+public class RateLimitedLogger {
+    private final Logger logger;
+    private final AtomicLong windowStart = new AtomicLong(0);
+    private final AtomicInteger windowCount = new AtomicInteger(0);
+    private final AtomicInteger suppressed = new AtomicInteger(0);
+    private volatile int messagesPerSecond;
+
+    public RateLimitedLogger(Logger logger, int messagesPerSecond) {
+        this.logger = logger;
+        this.messagesPerSecond = messagesPerSecond;
+    }
+
+    public void setMessagesPerSecond(int messagesPerSecond) {
+        this.messagesPerSecond = messagesPerSecond;
+    }
+
+    /**
+     * Log an info message if the rate limit allows it
+     * @param message Supplies the message, only called when the message is actually logged
+     */
+    public void info(Supplier<String> message) {
+        if (allow()) {
+            logger.info(message.get());
+        }
+    }
+
+    /**
+     * Log a warning if the rate limit allows it, for failures that can repeat once per chunk
+     * @param message Supplies the message, only called when the message is actually logged
+     */
+    public void warning(Supplier<String> message) {
+        if (allow()) {
+            logger.warning(message.get());
+        }
+    }
+
+    private boolean allow() {
+        long now = System.currentTimeMillis();
+        long start = windowStart.get();
+        if (now - start >= 1000 && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+            int dropped = suppressed.getAndSet(0);
+            if (dropped > 0) {
+                logger.info("(" + dropped + " messages suppressed)");
+            }
+        }
+
+        if (windowCount.incrementAndGet() > messagesPerSecond) {
+            suppressed.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+package id.rnggagib.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size ring buffer of binary trace records for the loading pipeline
+ * Recording is a cursor increment and five array stores, cheap enough to leave on in production
+ * The oldest records are overwritten once the buffer is full
+ *
+ * Each slot is a seqlock: the writer clears the slot's sequence, writes the fields and publishes the
+ * sequence again with a release store. The dump reads the sequence, copies the fields and reads the
+ * sequence once more, skipping the slot if a writer touched it in between.
+ */
+public class TraceRecorder {
+    // Longs per record: sequence, timestamp, type and value, chunk key (world in the high bits of type)
+    private static final int RECORD_SIZE = 4;
+
+    private final AtomicLongArray records;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(0);
+    private final Map<String, Integer> worldIds = new ConcurrentHashMap<>();
+    private final List<String> worldNames = new ArrayList<>();
+    private volatile boolean enabled;
+
+    /**
+     * @param capacity Number of records to keep, rounded up to a power of two
+     */
+    public TraceRecorder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.records = new AtomicLongArray(size * RECORD_SIZE);
+        this.mask = size - 1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The number of records the buffer holds
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return The total number of records written since creation, including overwritten ones
+     */
+    public long getRecordedCount() {
+        return cursor.get();
+    }
+
+    /**
+     * Record a trace event
+     * @param type The event type
+     * @param worldName The world of the chunk
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @param value Event specific value: priority for enqueue and dispatch, load time in ms for complete
+     */
+    public void record(TraceType type, String worldName, int x, int z, int value) {
+        if (!enabled) {
+            return;
+        }
+        long sequence = cursor.getAndIncrement();
+        int base = (int) (sequence & mask) * RECORD_SIZE;
+        long meta = ((long) worldId(worldName) << 40) | ((long) type.ordinal() << 32) | (value & 0xFFFFFFFFL);
+        // Mark the slot as being written before touching the fields
+        records.setPlain(base, 0);
+        VarHandle.releaseFence();
+        records.setPlain(base + 1, System.nanoTime());
+        records.setPlain(base + 2, meta);
+        records.setPlain(base + 3, ((long) x << 32) | (z & 0xFFFFFFFFL));
+        // Published last, the fields are visible to anyone who reads this sequence
+        records.setRelease(base, sequence + 1);
+    }
+
+    private int worldId(String worldName) {
+        Integer id = worldIds.get(worldName);
+        if (id != null) {
+            return id;
+        }
+        synchronized (worldNames) {
+            return worldIds.computeIfAbsent(worldName, name -> {
+                worldNames.add(name);
+                return worldNames.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Write the buffered records to a file as CSV, oldest first
+     * Records overwritten while the dump runs are skipped rather than written torn
+     * Performs blocking IO, call it off the main thread
+     * @param target The file to write
+     * @return The number of records written
+     * @throws IOException If the file cannot be written
+     */
+    public int dump(Path target) throws IOException {
+        long end = cursor.get();
+        long start = Math.max(0, end - getCapacity());
+        List<String> names;
+        synchronized (worldNames) {
+            names = new ArrayList<>(worldNames);
+        }
+
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        int written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writer.write("sequence,nano_time,type,world,x,z,value");
+            writer.newLine();
+            TraceType[] types = TraceType.values();
+            for (long sequence = start; sequence < end; sequence++) {
+                int base = (int) (sequence & mask) * RECORD_SIZE;
+                if (records.getAcquire(base) != sequence + 1) {
+                    continue;
+                }
+                long time = records.getPlain(base + 1);
+                long meta = records.getPlain(base + 2);
+                long key = records.getPlain(base + 3);
+                // The copy must be complete before the sequence is checked again
+                VarHandle.acquireFence();
+                if (records.getPlain(base) != sequence + 1) {
+                    continue;
+                }
+                int worldId = (int) (meta >>> 40);
+                int typeIndex = (int) ((meta >>> 32) & 0xFF);
+                writer.write(sequence + "," + time + "," + types[typeIndex] + ","
+                    + (worldId < names.size() ? names.get(worldId) : "?") + ","
+                    + (int) (key >> 32) + "," + (int) key + "," + (int) meta);
+                writer.newLine();
+                written++;
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,12 @@
+package id.rnggagib.trace;
+
+/**
+ * Types of trace records written by the loading pipeline
+ */
+public enum TraceType {
+    ENQUEUE,
+    DISPATCH,
+    COMPLETE,
+    DROP,
+    FAIL
+}
@@ -0,0 +1,211 @@
+package id.rnggagib.logic;
+
+import id.rnggagib.api.PriorityClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ordering and starvation bounds of the load queue, on a fake clock
+ */
+public class LoadQueueTest {
+    private static final long INTERVAL = 500;
+    private static final int MAX_BOOST = 16;
+
+    private long now;
+
+    private LoadQueue<TestEntry> queue() {
+        return new LoadQueue<>(() -> now, INTERVAL, MAX_BOOST);
+    }
+
+    private TestEntry entry(PriorityClass priorityClass, int priority) {
+        return new TestEntry(priorityClass, priority, now, 0);
+    }
+
+    @Test
+    public void agedEntryPassesNewerEntriesBelowMaxBoost() {
+        for (int base : new int[] {-200, -3, 0, 10, 200}) {
+            for (int above = 1; above < MAX_BOOST; above++) {
+                now = 0;
+                LoadQueue<TestEntry> queue = queue();
+                TestEntry old = entry(PriorityClass.NORMAL, base);
+                queue.offer(old);
+
+                now = INTERVAL * MAX_BOOST;
+                queue.offer(entry(PriorityClass.NORMAL, base + above));
+                assertSame("base " + base + ", newer entry " + above + " levels above", old, queue.poll());
+            }
+        }
+    }
+
+    @Test
+    public void fullyAgedEntryTiesWithMaxBoostAbove() {
+        now = 0;
+        LoadQueue<TestEntry> queue = queue();
+        TestEntry old = entry(PriorityClass.NORMAL, 0);
+        queue.offer(old);
+
+        now = INTERVAL * MAX_BOOST;
+        TestEntry newer = entry(PriorityClass.NORMAL, MAX_BOOST);
+        queue.offer(newer);
+        // Same effective priority, ties go to the higher base priority
+        assertSame(newer, queue.poll());
+        assertSame(old, queue.poll());
+    }
+
+    @Test
+    public void waitIsBoundedUnderSteadyStream() {
+        now = 0;
+        LoadQueue<TestEntry> queue = queue();
+        TestEntry old = entry(PriorityClass.NORMAL, 0);
+        queue.offer(old);
+
+        // A new chunk just below the boost limit arrives every millisecond and one chunk is taken every millisecond
+        long poppedAt = -1;
+        for (; now <= INTERVAL * MAX_BOOST * 2; now++) {
+            queue.offer(entry(PriorityClass.NORMAL, MAX_BOOST - 1));
+            if (queue.poll() == old) {
+                poppedAt = now;
+                break;
+            }
+        }
+        assertTrue("waited " + poppedAt, poppedAt >= 0 && poppedAt <= INTERVAL * MAX_BOOST);
+    }
+
+    @Test
+    public void agingNeverPassesHigherBand() {
+        PriorityClass[] bands = {PriorityClass.LOW, PriorityClass.NORMAL, PriorityClass.HIGH, PriorityClass.URGENT};
+        for (int i = 0; i + 1 < bands.length; i++) {
+            now = 0;
+            LoadQueue<TestEntry> queue = queue();
+            // Highest priority inside its band, queued long ago with a deadline that has passed
+            TestEntry old = new TestEntry(bands[i], Integer.MAX_VALUE, now, 1);
+            queue.offer(old);
+
+            now = INTERVAL * MAX_BOOST * 1000;
+            TestEntry newer = entry(bands[i + 1], Integer.MIN_VALUE);
+            queue.offer(newer);
+            assertSame(bands[i] + " passed " + bands[i + 1], newer, queue.poll());
+            assertSame(old, queue.poll());
+        }
+    }
+
+    @Test
+    public void lowPriorityIsNotLowClass() {
+        now = 0;
+        LoadQueue<TestEntry> queue = queue();
+        TestEntry low = entry(PriorityClass.LOW, 0);
+        queue.offer(low);
+        TestEntry planned = entry(PriorityClass.NORMAL, -200);
+        queue.offer(planned);
+        assertSame(planned, queue.poll());
+    }
+
+    @Test
+    public void negativeAndLargePrioritiesKeepOrder() {
+        now = 0;
+        LoadQueue<TestEntry> queue = new LoadQueue<>(() -> now, 0, 0);
+        int[] priorities = {7, -5, 0, 250, -3, -250, 1};
+        for (int priority : priorities) {
+            queue.offer(entry(PriorityClass.NORMAL, priority));
+        }
+        List<Integer> polled = new ArrayList<>();
+        TestEntry entry;
+        while ((entry = queue.poll()) != null) {
+            polled.add(entry.getPriority());
+        }
+        assertEquals(List.of(250, 7, 1, 0, -3, -5, -250), polled);
+    }
+
+    @Test
+    public void prioritiesOutsideNormalBandShareItsEnds() {
+        assertEquals(LoadQueue.levelOf(PriorityClass.NORMAL, LoadQueue.NORMAL_MAX_PRIORITY),
+            LoadQueue.levelOf(PriorityClass.NORMAL, 1000));
+        assertEquals(LoadQueue.levelOf(PriorityClass.NORMAL, LoadQueue.NORMAL_MIN_PRIORITY),
+            LoadQueue.levelOf(PriorityClass.NORMAL, Integer.MIN_VALUE));
+        assertTrue(LoadQueue.levelOf(PriorityClass.NORMAL, Integer.MAX_VALUE) < LoadQueue.levelOf(PriorityClass.HIGH, 0));
+        assertTrue(LoadQueue.levelOf(PriorityClass.NORMAL, Integer.MIN_VALUE) > LoadQueue.levelOf(PriorityClass.LOW, 0));
+        assertTrue(LoadQueue.levelOf(PriorityClass.URGENT, 0) < LoadQueue.LEVELS);
+    }
+
+    @Test
+    public void shedOnlyRemovesCountedEntries() {
+        now = 0;
+        LoadQueue<TestEntry> queue = queue();
+        List<TestEntry> high = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TestEntry entry = entry(PriorityClass.HIGH, 0);
+            high.add(entry);
+            queue.offer(entry);
+        }
+        for (int priority = 0; priority < 5; priority++) {
+            queue.offer(entry(PriorityClass.NORMAL, priority));
+        }
+
+        // Only NORMAL entries count towards the cap, the least valuable go first
+        List<TestEntry> shed = queue.shed(2, Comparator.comparingInt(LoadQueue::levelOf),
+            entry -> entry.getPriorityClass() == PriorityClass.NORMAL);
+        List<Integer> shedPriorities = new ArrayList<>();
+        for (TestEntry entry : shed) {
+            shedPriorities.add(entry.getPriority());
+        }
+        assertEquals(List.of(0, 1, 2), shedPriorities);
+        assertEquals(12, queue.size());
+        for (TestEntry entry : high) {
+            assertSame(entry, queue.poll());
+        }
+    }
+
+    private static class TestEntry implements LoadQueue.Entry {
+        private static long nextSequence;
+
+        private final PriorityClass priorityClass;
+        private final int priority;
+        private final long timestamp;
+        private final long deadline;
+        private final long sequence = nextSequence++;
+
+        TestEntry(PriorityClass priorityClass, int priority, long timestamp, long deadline) {
+            this.priorityClass = priorityClass;
+            this.priority = priority;
+            this.timestamp = timestamp;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public PriorityClass getPriorityClass() {
+            return priorityClass;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+
+        @Override
+        public MovementMode getMode() {
+            return null;
+        }
+
+        @Override
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+}
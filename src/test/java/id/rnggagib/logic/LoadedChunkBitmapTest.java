@@ -0,0 +1,161 @@
+package id.rnggagib.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the bitmap with a plain set of coordinates under random loads and unloads
+ */
+public class LoadedChunkBitmapTest {
+
+    private static UUID world() {
+        return UUID.randomUUID();
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Coordinates around the origin and around region edges, where the region and bit arithmetic can go wrong
+     */
+    private static int coordinate(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return random.nextInt(8) - 4;
+            case 1:
+                return (random.nextInt(9) - 4) * 32 + random.nextInt(3) - 1;
+            case 2:
+                // Near the world border, 30 million blocks out
+                return (random.nextBoolean() ? 1 : -1) * 1875000 + random.nextInt(3) - 1;
+            default:
+                return random.nextInt(2000) - 1000;
+        }
+    }
+
+    private static void assertMatches(LoadedChunkBitmap bitmap, UUID world, Set<Long> reference, List<int[]> probes) {
+        for (int[] probe : probes) {
+            assertEquals("chunk " + probe[0] + "," + probe[1], reference.contains(key(probe[0], probe[1])),
+                bitmap.isLoaded(world, probe[0], probe[1]));
+        }
+    }
+
+    @Test
+    public void randomLoadsAndUnloadsMatchReference() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            LoadedChunkBitmap bitmap = new LoadedChunkBitmap();
+            UUID world = world();
+            Set<Long> reference = new HashSet<>();
+            List<int[]> touched = new ArrayList<>();
+
+            for (int i = 0; i < 20000; i++) {
+                int x;
+                int z;
+                if (!touched.isEmpty() && random.nextInt(3) == 0) {
+                    int[] previous = touched.get(random.nextInt(touched.size()));
+                    x = previous[0];
+                    z = previous[1];
+                } else {
+                    x = coordinate(random);
+                    z = coordinate(random);
+                    touched.add(new int[] {x, z});
+                }
+
+                if (random.nextInt(5) < 3) {
+                    bitmap.setLoaded(world, x, z);
+                    reference.add(key(x, z));
+                } else {
+                    bitmap.setUnloaded(world, x, z);
+                    reference.remove(key(x, z));
+                }
+                assertEquals("seed " + seed + " step " + i, reference.contains(key(x, z)), bitmap.isLoaded(world, x, z));
+            }
+            assertMatches(bitmap, world, reference, touched);
+        }
+    }
+
+    @Test
+    public void neighboursAcrossRegionEdgesAreIndependent() {
+        LoadedChunkBitmap bitmap = new LoadedChunkBitmap();
+        UUID world = world();
+        int[] edges = {-65, -64, -33, -32, -31, -1, 0, 1, 31, 32, 33, 63, 64};
+        Set<Long> reference = new HashSet<>();
+        List<int[]> probes = new ArrayList<>();
+        for (int x : edges) {
+            for (int z : edges) {
+                probes.add(new int[] {x, z});
+            }
+        }
+
+        // Load every other cell, then unload a few, checking the whole grid after each change
+        boolean load = false;
+        for (int[] probe : probes) {
+            load = !load;
+            if (load) {
+                bitmap.setLoaded(world, probe[0], probe[1]);
+                reference.add(key(probe[0], probe[1]));
+                assertMatches(bitmap, world, reference, probes);
+            }
+        }
+        for (int i = 0; i < probes.size(); i += 3) {
+            int[] probe = probes.get(i);
+            bitmap.setUnloaded(world, probe[0], probe[1]);
+            reference.remove(key(probe[0], probe[1]));
+            assertMatches(bitmap, world, reference, probes);
+        }
+    }
+
+    @Test
+    public void emptiedRegionCanBeReused() {
+        LoadedChunkBitmap bitmap = new LoadedChunkBitmap();
+        UUID world = world();
+        bitmap.setLoaded(world, -1, -1);
+        bitmap.setUnloaded(world, -1, -1);
+        assertFalse(bitmap.isLoaded(world, -1, -1));
+        bitmap.setLoaded(world, -32, -32);
+        assertTrue(bitmap.isLoaded(world, -32, -32));
+        assertFalse(bitmap.isLoaded(world, -1, -1));
+        // Unloading a chunk that was never loaded changes nothing
+        bitmap.setUnloaded(world, 5000, -5000);
+        assertTrue(bitmap.isLoaded(world, -32, -32));
+    }
+
+    @Test
+    public void worldsAreSeparate() {
+        LoadedChunkBitmap bitmap = new LoadedChunkBitmap();
+        UUID first = world();
+        UUID second = world();
+        bitmap.setLoaded(first, 3, -7);
+        assertTrue(bitmap.isLoaded(first, 3, -7));
+        assertFalse(bitmap.isLoaded(second, 3, -7));
+
+        bitmap.clear(first);
+        assertFalse(bitmap.isLoaded(first, 3, -7));
+    }
+
+    @Test
+    public void seedReplacesWorldContents() {
+        LoadedChunkBitmap bitmap = new LoadedChunkBitmap();
+        UUID world = world();
+        bitmap.setLoaded(world, 100, 100);
+
+        bitmap.seed(world, Arrays.asList(new int[] {0, 0}, new int[] {-1, 31}, new int[] {-33, -64}));
+        assertTrue(bitmap.isLoaded(world, 0, 0));
+        assertTrue(bitmap.isLoaded(world, -1, 31));
+        assertTrue(bitmap.isLoaded(world, -33, -64));
+        assertFalse(bitmap.isLoaded(world, 100, 100));
+        assertFalse(bitmap.isLoaded(world, -1, 32));
+    }
+}
@@ -0,0 +1,61 @@
+package id.rnggagib.logic;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Coverage of the pregeneration spiral
+ */
+public class PregeneratorTest {
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    @Test
+    public void spiralCoversSquareExactlyOnce() {
+        for (int radius = 0; radius <= 40; radius++) {
+            long side = 2L * radius + 1;
+            Set<Long> seen = new HashSet<>();
+            for (long index = 0; index < side * side; index++) {
+                int[] offset = Pregenerator.spiral(index);
+                assertTrue("radius " + radius + ", index " + index + " outside the square",
+                    Math.abs(offset[0]) <= radius && Math.abs(offset[1]) <= radius);
+                assertTrue("radius " + radius + ", index " + index + " repeats " + offset[0] + "," + offset[1],
+                    seen.add(key(offset[0], offset[1])));
+            }
+            assertEquals(side * side, seen.size());
+        }
+    }
+
+    @Test
+    public void spiralStepsToNeighbours() {
+        int[] previous = Pregenerator.spiral(0);
+        for (long index = 1; index < 101L * 101L; index++) {
+            int[] offset = Pregenerator.spiral(index);
+            int ring = Math.max(Math.abs(offset[0]), Math.abs(offset[1]));
+            boolean ringStart = ring > Math.max(Math.abs(previous[0]), Math.abs(previous[1]));
+            // Within a ring every step goes to an adjacent chunk, a new ring starts next to the end of the last one
+            int step = Math.abs(offset[0] - previous[0]) + Math.abs(offset[1] - previous[1]);
+            assertTrue("index " + index, ringStart ? step <= 2 : step == 1);
+            previous = offset;
+        }
+    }
+
+    @Test
+    public void spiralIsExactAtLargeRingBoundaries() {
+        // Far enough out that the square root estimate lands on the wrong ring without the correction
+        for (long ring = 1000; ring <= 1_000_000; ring *= 10) {
+            for (long index = (2 * ring - 1) * (2 * ring - 1) - 2; index <= (2 * ring - 1) * (2 * ring - 1) + 2; index++) {
+                int[] offset = Pregenerator.spiral(index);
+                long expectedRing = index < (2 * ring - 1) * (2 * ring - 1) ? ring - 1 : ring;
+                assertEquals("index " + index, expectedRing, Math.max(Math.abs(offset[0]), Math.abs(offset[1])));
+            }
+        }
+    }
+}
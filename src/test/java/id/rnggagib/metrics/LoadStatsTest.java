@@ -0,0 +1,176 @@
+package id.rnggagib.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrency tests for the lock-free minute ring and the priority distribution
+ */
+public class LoadStatsTest {
+    private static final long MINUTE = 60000L;
+    // Far from zero so the packed minute uses the high half of the slot like it does in production
+    private static final long START = 1_700_000_000_000L / MINUTE * MINUTE;
+
+    private static final int WRITERS = 8;
+    private static final int LOADS_PER_MINUTE = 2000;
+    private static final int PRIORITIES = 7;
+    // More than two trips around the ring, so every slot is taken over by a new minute at least twice
+    private static final int MINUTES = LoadStats.MINUTES * 2 + 30;
+
+    /**
+     * Load time recorded by a writer for its i-th load of a minute, varied so lost or doubled counts change the sum
+     */
+    private static long loadTime(int writer, int i) {
+        return 1 + (writer * 31 + i) % 17;
+    }
+
+    @Test(timeout = 120000)
+    public void concurrentWritersPreserveTotalsAcrossRollovers() throws Exception {
+        LoadStats stats = new LoadStats();
+        AtomicLong currentMinute = new AtomicLong(-1);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        long loadTimePerMinute = 0;
+        for (int writer = 0; writer < WRITERS; writer++) {
+            for (int i = 0; i < LOADS_PER_MINUTE; i++) {
+                loadTimePerMinute += loadTime(writer, i);
+            }
+        }
+        long expectedPerMinute = (long) WRITERS * LOADS_PER_MINUTE;
+        double expectedAverage = (double) loadTimePerMinute / expectedPerMinute;
+
+        // All writers start each minute together, so they race to take its slot over from the minute an hour earlier
+        CyclicBarrier minuteStart = new CyclicBarrier(WRITERS + 1);
+        CyclicBarrier minuteEnd = new CyclicBarrier(WRITERS + 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int minute = 0; minute < MINUTES; minute++) {
+                        minuteStart.await();
+                        long base = START + minute * MINUTE;
+                        for (int i = 0; i < LOADS_PER_MINUTE; i++) {
+                            stats.recordLoaded(base + (long) i * (MINUTE - 1) / LOADS_PER_MINUTE, loadTime(writer, i));
+                            stats.recordPriority((writer + i) % PRIORITIES);
+                        }
+                        minuteEnd.await();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "writer-" + writer));
+        }
+
+        // Reads snapshots while the writers run, finished minutes must already hold their exact count
+        threads.add(new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    long minute = currentMinute.get();
+                    if (minute < 0) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    LoadStats.Snapshot snapshot = stats.snapshot(START + minute * MINUTE + MINUTE - 1);
+                    if (currentMinute.get() != minute) {
+                        continue; // The next minute may have started taking over the oldest slot
+                    }
+                    assertTrue("current minute over count", snapshot.getLoadedMinutesAgo(0) <= expectedPerMinute);
+                    for (int ago = 1; ago < LoadStats.MINUTES && ago <= minute; ago++) {
+                        assertEquals("finished minute " + (minute - ago), expectedPerMinute, snapshot.getLoadedMinutesAgo(ago));
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }, "reader"));
+
+        // Drains the priority distribution while it is being counted, nothing may be lost or counted twice
+        Map<Integer, Long> drained = new TreeMap<>();
+        Thread drainer = new Thread(() -> {
+            while (!done.get()) {
+                stats.drainPriorityDistribution().forEach((priority, count) -> drained.merge(priority, count, Long::sum));
+            }
+        }, "drainer");
+        threads.add(drainer);
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (int minute = 0; minute < MINUTES && failure.get() == null; minute++) {
+                currentMinute.set(minute);
+                minuteStart.await();
+                minuteEnd.await();
+
+                LoadStats.Snapshot snapshot = stats.snapshot(START + minute * MINUTE + MINUTE - 1);
+                assertEquals("minute " + minute, expectedPerMinute, snapshot.getLoadedMinutesAgo(0));
+                assertEquals(expectedPerMinute * (minute + 1), snapshot.getTotalLoaded());
+                assertEquals(expectedPerMinute * Math.min(minute + 1, LoadStats.MINUTES), snapshot.getLoadedLastHour());
+                assertEquals(expectedAverage, snapshot.getAverageLoadTimeMs(), 1e-9);
+            }
+        } finally {
+            // Release writers stuck at a barrier if the loop above stopped early
+            done.set(true);
+            minuteStart.reset();
+            minuteEnd.reset();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        assertNull("worker failed: " + failure.get(), failure.get());
+
+        stats.drainPriorityDistribution().forEach((priority, count) -> drained.merge(priority, count, Long::sum));
+        long[] expectedPriorities = new long[PRIORITIES];
+        for (int writer = 0; writer < WRITERS; writer++) {
+            for (int i = 0; i < LOADS_PER_MINUTE; i++) {
+                expectedPriorities[(writer + i) % PRIORITIES] += MINUTES;
+            }
+        }
+        assertEquals(PRIORITIES, drained.size());
+        for (int priority = 0; priority < PRIORITIES; priority++) {
+            assertEquals("priority " + priority, expectedPriorities[priority], (long) drained.get(priority));
+        }
+    }
+
+    @Test
+    public void lateWriteAfterRolloverIsDropped() {
+        LoadStats stats = new LoadStats();
+        stats.recordLoaded(START, 5);
+        stats.recordLoaded(START + LoadStats.MINUTES * MINUTE, 7);
+        // Same slot, an hour too late to count
+        stats.recordLoaded(START, 5);
+
+        LoadStats.Snapshot snapshot = stats.snapshot(START + LoadStats.MINUTES * MINUTE);
+        assertEquals(1, snapshot.getLoadedMinutesAgo(0));
+        assertEquals(1, snapshot.getLoadedLastHour());
+        assertEquals(7.0, snapshot.getAverageLoadTimeMs(), 1e-9);
+        assertEquals(3, snapshot.getTotalLoaded());
+    }
+
+    @Test
+    public void slidingMinuteWeighsPreviousMinute() {
+        LoadStats stats = new LoadStats();
+        for (int i = 0; i < 100; i++) {
+            stats.recordLoaded(START + i, 1);
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.recordLoaded(START + MINUTE + i, 1);
+        }
+        // A quarter into the next minute, three quarters of the previous one are still inside the window
+        assertEquals(10 + 75, stats.snapshot(START + MINUTE + MINUTE / 4).getLoadedLastMinute());
+    }
+}
@@ -0,0 +1,151 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.api.event.PreloadDroppedEvent;
+import id.rnggagib.logic.LoaderPlatform;
+import id.rnggagib.logic.LoaderPlayer;
+import id.rnggagib.logic.LoaderWorld;
+import id.rnggagib.logic.MovementMode;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Server of the simulator: a settable clock, a tick-driven scheduler, fake worlds and trace-driven players
+ * Events are only counted
+ */
+class FakePlatform implements LoaderPlatform {
+    private final ConfigurationSection config;
+    private final int viewDistance;
+    private final File dataFolder;
+    private final Logger logger = Logger.getAnonymousLogger();
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final Map<String, SimWorld> worlds = new LinkedHashMap<>();
+    private final Map<UUID, SimPlayer> players = new LinkedHashMap<>();
+    private final AtomicLong preloadedEvents = new AtomicLong();
+    private final Map<PreloadDroppedEvent.Reason, AtomicLong> droppedEvents = new EnumMap<>(PreloadDroppedEvent.Reason.class);
+    // Written by the simulation thread, read by bookkeeping threads
+    private volatile long now;
+
+    FakePlatform(ConfigurationSection config, int viewDistance, File dataFolder) {
+        this.config = config;
+        this.viewDistance = viewDistance;
+        this.dataFolder = dataFolder;
+        logger.setLevel(Level.WARNING);
+        for (PreloadDroppedEvent.Reason reason : PreloadDroppedEvent.Reason.values()) {
+            droppedEvents.put(reason, new AtomicLong());
+        }
+    }
+
+    void setTime(long now) {
+        this.now = now;
+    }
+
+    void addWorld(SimWorld world) {
+        worlds.put(world.getName(), world);
+    }
+
+    void addPlayer(SimPlayer player) {
+        players.put(player.getUniqueId(), player);
+    }
+
+    long getDropped(PreloadDroppedEvent.Reason reason) {
+        return droppedEvents.get(reason).get();
+    }
+
+    long getPreloadedEvents() {
+        return preloadedEvents.get();
+    }
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public ConfigurationSection getConfig() {
+        return config;
+    }
+
+    @Override
+    public void saveDefaultConfig() {
+    }
+
+    @Override
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public FakeScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public int getViewDistance() {
+        return viewDistance;
+    }
+
+    @Override
+    public double getTps() {
+        return 20.0;
+    }
+
+    @Override
+    public double getAverageTickTime() {
+        return 10.0;
+    }
+
+    @Override
+    public Collection<? extends LoaderPlayer> getOnlinePlayers() {
+        return players.values();
+    }
+
+    @Override
+    public LoaderPlayer getPlayer(UUID playerId) {
+        return players.get(playerId);
+    }
+
+    @Override
+    public List<? extends LoaderWorld> getWorlds() {
+        return new ArrayList<>(worlds.values());
+    }
+
+    @Override
+    public LoaderWorld getWorld(String name) {
+        return worlds.get(name);
+    }
+
+    @Override
+    public void fireChunkPreloaded(LoaderWorld world, int x, int z, int priority, long loadTimeMs) {
+        preloadedEvents.incrementAndGet();
+    }
+
+    @Override
+    public void firePreloadDropped(LoaderWorld world, int x, int z, PreloadDroppedEvent.Reason reason) {
+        droppedEvents.get(reason).incrementAndGet();
+    }
+
+    @Override
+    public void fireFrontierPlanned(LoaderPlayer player, MovementMode mode, int queuedChunks) {
+    }
+}
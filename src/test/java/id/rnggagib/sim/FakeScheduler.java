@@ -0,0 +1,98 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.logic.LoaderScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scheduler driven one tick at a time by the simulation
+ * Async tasks run on the calling thread like the main thread tasks, so every run is deterministic,
+ * but only the main thread tasks count towards the measured tick cost
+ */
+class FakeScheduler implements LoaderScheduler {
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private long currentTick;
+    private long mainThreadNanos;
+
+    /**
+     * Run every task that is due in the next tick, tasks scheduled while it runs wait for the tick after
+     */
+    void tick() {
+        currentTick++;
+        for (ScheduledTask task : new ArrayList<>(tasks)) {
+            if (task.cancelled || task.nextRun > currentTick) {
+                continue;
+            }
+            long start = System.nanoTime();
+            task.runnable.run();
+            if (!task.async) {
+                mainThreadNanos += System.nanoTime() - start;
+            }
+            if (task.period > 0) {
+                task.nextRun += task.period;
+            } else {
+                task.cancelled = true;
+            }
+        }
+        tasks.removeIf(task -> task.cancelled);
+    }
+
+    /**
+     * @return Time spent in main thread tasks so far
+     */
+    long getMainThreadNanos() {
+        return mainThreadNanos;
+    }
+
+    @Override
+    public Task runTimer(Runnable task, long delayTicks, long periodTicks) {
+        return schedule(task, false, delayTicks, periodTicks);
+    }
+
+    @Override
+    public Task runTimerAsync(Runnable task, long delayTicks, long periodTicks) {
+        return schedule(task, true, delayTicks, periodTicks);
+    }
+
+    @Override
+    public Task runTask(Runnable task) {
+        return schedule(task, false, 1, 0);
+    }
+
+    @Override
+    public Task runAsync(Runnable task) {
+        return schedule(task, true, 1, 0);
+    }
+
+    private Task schedule(Runnable runnable, boolean async, long delayTicks, long periodTicks) {
+        ScheduledTask task = new ScheduledTask(runnable, async, currentTick + Math.max(1, delayTicks), periodTicks);
+        tasks.add(task);
+        return task;
+    }
+
+    private static class ScheduledTask implements Task {
+        private final Runnable runnable;
+        private final boolean async;
+        private final long period;
+        private long nextRun;
+        private boolean cancelled;
+
+        ScheduledTask(Runnable runnable, boolean async, long nextRun, long period) {
+            this.runnable = runnable;
+            this.async = async;
+            this.nextRun = nextRun;
+            this.period = period;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package id.rnggagib.sim;
+
+import java.util.Random;
+
+/**
+ * Chunk load latency distribution of the simulated world
+ * Latency is a fixed minimum plus an exponentially distributed tail, with separate
+ * parameters for chunks that already exist on disk and chunks that must be generated
+ */
+public class LatencyModel {
+    private final long loadMinMs;
+    private final double loadMeanExtraMs;
+    private final long generateMinMs;
+    private final double generateMeanExtraMs;
+
+    public LatencyModel(long loadMinMs, double loadMeanExtraMs, long generateMinMs, double generateMeanExtraMs) {
+        this.loadMinMs = loadMinMs;
+        this.loadMeanExtraMs = loadMeanExtraMs;
+        this.generateMinMs = generateMinMs;
+        this.generateMeanExtraMs = generateMeanExtraMs;
+    }
+
+    /**
+     * A rough model of a Paper server on SSD storage
+     * @return The default latency model
+     */
+    public static LatencyModel defaults() {
+        return new LatencyModel(5, 15, 40, 120);
+    }
+
+    /**
+     * Draw a latency from the distribution
+     * @param random The simulation's random source
+     * @param generate true if the chunk has to be generated
+     * @return The latency in milliseconds
+     */
+    public long sample(Random random, boolean generate) {
+        double mean = generate ? generateMeanExtraMs : loadMeanExtraMs;
+        long min = generate ? generateMinMs : loadMinMs;
+        double extra = -mean * Math.log(1.0 - random.nextDouble());
+        return min + Math.round(extra);
+    }
+}
@@ -0,0 +1,145 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.api.event.PreloadDroppedEvent;
+import id.rnggagib.logic.ChunkLoadManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Replays movement traces through the plugin's real ChunkLoadManager on a fake clock and fake world
+ * Planning, group frontiers, the urgent lane, stale drops and the queue all run as on a server,
+ * only the server is replaced by {@link FakePlatform}. Every run with the same config and traces
+ * produces the same report, except for the measured tick cost
+ */
+class LoaderSimulation {
+    private static final long TICK_MS = 50;
+
+    private final SimulationConfig config;
+
+    LoaderSimulation(SimulationConfig config) {
+        this.config = config;
+    }
+
+    SimulationReport run(MovementTrace trace) {
+        return run(Collections.singletonList(trace));
+    }
+
+    /**
+     * Run the simulation, every trace is one player in the same world
+     * @param traces The players' paths
+     * @return The report of the run
+     */
+    SimulationReport run(List<MovementTrace> traces) {
+        Random random = new Random(config.getSeed());
+        int viewDistance = config.getViewDistance();
+        FakePlatform platform = new FakePlatform(config.toConfiguration(), viewDistance,
+            new File(System.getProperty("java.io.tmpdir"), "pcl-sim"));
+        SimWorld world = new SimWorld("world", config.getLatencyModel(), random, config.getGeneratedFraction());
+        platform.addWorld(world);
+
+        // The area around each starting position is already loaded, like a spawn area
+        Set<Long> seen = new HashSet<>();
+        List<SimPlayer> players = new ArrayList<>();
+        int[][] lastChunks = new int[traces.size()][];
+        long duration = 0;
+        for (MovementTrace trace : traces) {
+            SimPlayer player = new SimPlayer(trace, world);
+            players.add(player);
+            platform.addPlayer(player);
+            lastChunks[players.size() - 1] = new int[] {player.getChunkX(), player.getChunkZ()};
+            for (int dx = -viewDistance; dx <= viewDistance; dx++) {
+                for (int dz = -viewDistance; dz <= viewDistance; dz++) {
+                    world.forceLoad(player.getChunkX() + dx, player.getChunkZ() + dz);
+                    seen.add(SimWorld.key(player.getChunkX() + dx, player.getChunkZ() + dz));
+                }
+            }
+            duration = Math.max(duration, trace.getDurationMs());
+        }
+
+        ChunkLoadManager manager = new ChunkLoadManager(platform);
+        world.track(manager.getLoadedChunks());
+        manager.startTask();
+
+        long hits = 0;
+        long misses = 0;
+        List<Long> waits = new ArrayList<>();
+        int peakQueue = 0;
+        long mainThreadNanos = 0;
+        long ticks = duration / TICK_MS;
+        try {
+            for (long tick = 1; tick <= ticks; tick++) {
+                long now = tick * TICK_MS;
+                platform.setTime(now);
+
+                // Paper completes loads on the main thread, so their callbacks count towards the tick
+                long start = System.nanoTime();
+                world.advance(now);
+                mainThreadNanos += System.nanoTime() - start;
+
+                for (int i = 0; i < players.size(); i++) {
+                    SimPlayer player = players.get(i);
+                    player.moveTo(now);
+                    int chunkX = player.getChunkX();
+                    int chunkZ = player.getChunkZ();
+                    if (chunkX == lastChunks[i][0] && chunkZ == lastChunks[i][1]) {
+                        continue;
+                    }
+                    lastChunks[i][0] = chunkX;
+                    lastChunks[i][1] = chunkZ;
+
+                    // Chunks entering view for the first time must be loaded now, either the loader did it already or the player waits
+                    for (int dx = -viewDistance; dx <= viewDistance; dx++) {
+                        for (int dz = -viewDistance; dz <= viewDistance; dz++) {
+                            int x = chunkX + dx;
+                            int z = chunkZ + dz;
+                            if (!seen.add(SimWorld.key(x, z))) {
+                                continue;
+                            }
+                            if (world.isChunkLoaded(x, z)) {
+                                hits++;
+                            } else {
+                                misses++;
+                                waits.add(world.loadForPlayer(x, z));
+                            }
+                        }
+                    }
+
+                    // The move listener's call on a chunk crossing
+                    if (config.isPreloading()) {
+                        start = System.nanoTime();
+                        manager.queueChunksForPlayer(player);
+                        mainThreadNanos += System.nanoTime() - start;
+                    }
+                }
+
+                platform.getScheduler().tick();
+                peakQueue = Math.max(peakQueue, manager.getQueueSize());
+            }
+        } finally {
+            manager.stopTask();
+            manager.getBookkeeping().stop();
+        }
+        mainThreadNanos += platform.getScheduler().getMainThreadNanos();
+
+        long wasted = 0;
+        for (long key : world.getPreloaded()) {
+            if (!seen.contains(key)) {
+                wasted++;
+            }
+        }
+
+        StringBuilder name = new StringBuilder();
+        for (MovementTrace trace : traces) {
+            name.append(name.length() > 0 ? "+" : "").append(trace.getName());
+        }
+        double msptCost = ticks > 0 ? mainThreadNanos / 1_000_000.0 / ticks : 0;
+        return new SimulationReport(name.toString(), config.getLabel(), hits, misses, world.getPreloaded().size(), wasted,
+            waits, platform.getDropped(PreloadDroppedEvent.Reason.NOT_NEEDED), peakQueue, msptCost);
+    }
+}
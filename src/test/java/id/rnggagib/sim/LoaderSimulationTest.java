@@ -0,0 +1,165 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.api.event.PreloadDroppedEvent;
+import id.rnggagib.logic.ChunkLoadManager;
+import id.rnggagib.logic.MovementMode;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the real loader against the simulator
+ *
+ * The report grid only runs when asked for, with synthetic traces or recorded ones:
+ * mvn test -Dtest=LoaderSimulationTest -Dpcl.sim.report=true [-Dpcl.sim.traces=movement.pclm,path.csv]
+ * Traces ending in .pclm are movement logs from the in-game recorder, anything else is read as CSV
+ */
+public class LoaderSimulationTest {
+
+    private static MovementTrace walk() {
+        return MovementTrace.wander(5.6, 8000, 60, 60000, 42, MovementMode.WALKING);
+    }
+
+    @Test
+    public void sameInputsGiveSameReport() {
+        SimulationConfig config = SimulationConfig.builder().chunksPerPass(2).build();
+        SimulationReport first = new LoaderSimulation(config).run(walk());
+        SimulationReport second = new LoaderSimulation(config).run(walk());
+
+        assertEquals(first.getHits(), second.getHits());
+        assertEquals(first.getMisses(), second.getMisses());
+        assertEquals(first.getPreloads(), second.getPreloads());
+        assertEquals(first.getWastedLoads(), second.getWastedLoads());
+        assertEquals(first.getWaits(), second.getWaits());
+        assertEquals(first.getStaleDrops(), second.getStaleDrops());
+        assertEquals(first.getPeakQueue(), second.getPeakQueue());
+    }
+
+    @Test
+    public void preloadingRaisesHitRate() {
+        MovementTrace trace = MovementTrace.straight(5.6, 30, 60000, MovementMode.WALKING);
+        SimulationReport baseline = new LoaderSimulation(SimulationConfig.builder().preloading(false).build()).run(trace);
+        SimulationReport preloaded = new LoaderSimulation(SimulationConfig.builder().chunksPerPass(2).build()).run(trace);
+
+        assertEquals(0, baseline.getHits());
+        assertEquals(0, baseline.getPreloads());
+        assertTrue("hit rate " + preloaded.getHitRate(), preloaded.getHits() > 0);
+        assertTrue(preloaded.getWaitPercentile(99) <= baseline.getWaitPercentile(99));
+
+        // A wider frontier covers more of the view edge the player walks into
+        SimulationReport wide = new LoaderSimulation(SimulationConfig.builder()
+            .frontier(1, 5, 2, 0.4).chunksPerPass(2).build()).run(trace);
+        assertTrue("hit rate " + wide.getHitRate() + " vs " + preloaded.getHitRate(),
+            wide.getHitRate() > preloaded.getHitRate());
+    }
+
+    @Test
+    public void queuedChunksLeftBehindAreDropped() {
+        // Fast flight with sharp turns leaves planned chunks behind the player faster than the queue drains
+        MovementTrace trace = MovementTrace.wander(30, 3000, 180, 60000, 3, MovementMode.ELYTRA);
+        SimulationReport report = new LoaderSimulation(SimulationConfig.builder().chunksPerPass(4).build()).run(trace);
+        assertTrue("stale drops " + report.getStaleDrops(), report.getStaleDrops() > 0);
+
+        SimulationReport kept = new LoaderSimulation(SimulationConfig.builder().chunksPerPass(4)
+            .set("stale-chunks.enabled", false).build()).run(trace);
+        assertEquals(0, kept.getStaleDrops());
+        assertTrue("wasted " + kept.getWastedLoads() + " vs " + report.getWastedLoads(),
+            kept.getWastedLoads() > report.getWastedLoads());
+    }
+
+    @Test
+    public void teleportDestinationSkipsTheQueue() {
+        FakePlatform platform = new FakePlatform(SimulationConfig.builder().build().toConfiguration(), 10,
+            new File(System.getProperty("java.io.tmpdir"), "pcl-sim"));
+        SimWorld world = new SimWorld("world", LatencyModel.defaults(), new Random(1), 1.0);
+        platform.addWorld(world);
+        ChunkLoadManager manager = new ChunkLoadManager(platform);
+        world.track(manager.getLoadedChunks());
+        manager.startTask();
+        try {
+            // A player far away fills the normal queue
+            SimPlayer player = new SimPlayer(MovementTrace.straight(5.6, 0, 60000, MovementMode.WALKING), world);
+            platform.addPlayer(player);
+            manager.queueChunksForPlayer(player);
+            int planned = manager.getQueueSize();
+
+            manager.preloadDestination(world, 1000, 1000);
+            // Radius 2 around the destination, 8 urgent chunks per pass
+            long now = 0;
+            while (!isAreaLoaded(world, 1000, 1000, 2)) {
+                assertTrue("destination not loaded after " + now + "ms", now < 2000);
+                now += 50;
+                platform.setTime(now);
+                world.advance(now);
+                platform.getScheduler().tick();
+            }
+            // The chunks planned before the teleport are still waiting behind it
+            assertTrue("planned " + planned + ", still queued " + manager.getQueueSize(), manager.getQueueSize() > 0);
+            assertEquals(0, platform.getDropped(PreloadDroppedEvent.Reason.FAILED));
+        } finally {
+            manager.stopTask();
+            manager.getBookkeeping().stop();
+        }
+    }
+
+    private static boolean isAreaLoaded(SimWorld world, int centerX, int centerZ, int radius) {
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                if (!world.isChunkLoaded(x, z)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void reportGrid() throws IOException {
+        String recorded = System.getProperty("pcl.sim.traces", "");
+        Assume.assumeTrue("set -Dpcl.sim.report=true to print the report grid",
+            Boolean.getBoolean("pcl.sim.report") || !recorded.isEmpty());
+
+        List<MovementTrace> traces = new ArrayList<>();
+        for (String path : recorded.split(",")) {
+            if (path.isEmpty()) {
+                continue;
+            }
+            if (path.endsWith(".pclm")) {
+                traces.addAll(MovementTrace.fromRecording(Paths.get(path)));
+            } else {
+                traces.add(MovementTrace.fromCsv(Paths.get(path)));
+            }
+        }
+        if (traces.isEmpty()) {
+            traces.add(MovementTrace.straight(5.6, 30, 120000, MovementMode.WALKING));
+            traces.add(MovementTrace.wander(5.6, 8000, 60, 180000, 42, MovementMode.WALKING));
+            traces.add(MovementTrace.straight(30, 75, 60000, MovementMode.ELYTRA));
+            traces.add(MovementTrace.wander(40, 5000, 20, 60000, 7, MovementMode.BOAT));
+        }
+
+        System.out.println(SimulationReport.header());
+        for (MovementTrace trace : traces) {
+            System.out.println(new LoaderSimulation(SimulationConfig.builder().preloading(false).build()).run(trace).toRow());
+            for (int maxDistance : new int[] {2, 3, 5, 8}) {
+                for (int width : new int[] {0, 1, 2}) {
+                    for (double spread : new double[] {0.2, 0.4, 0.6}) {
+                        SimulationConfig config = SimulationConfig.builder()
+                            .frontier(1, maxDistance, width, spread)
+                            .chunksPerPass(2)
+                            .build();
+                        System.out.println(new LoaderSimulation(config).run(trace).toRow());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.logic.MovementMode;
+import id.rnggagib.trace.MovementLogReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * A player's path through the world, sampled over time
+ */
+public class MovementTrace {
+    private final String name;
+    private final List<Sample> samples;
+
+    public MovementTrace(String name, List<Sample> samples) {
+        this.name = name;
+        this.samples = Collections.unmodifiableList(new ArrayList<>(samples));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Sample> getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return The time of the last sample in milliseconds
+     */
+    public long getDurationMs() {
+        return samples.isEmpty() ? 0 : samples.get(samples.size() - 1).timeMs;
+    }
+
+    /**
+     * Get the interpolated sample at a point in time
+     * @param timeMs The time in milliseconds
+     * @return The sample, clamped to the first and last samples
+     */
+    public Sample sampleAt(long timeMs) {
+        if (timeMs <= samples.get(0).timeMs) {
+            return samples.get(0);
+        }
+        int low = 0;
+        int high = samples.size() - 1;
+        if (timeMs >= samples.get(high).timeMs) {
+            return samples.get(high);
+        }
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (samples.get(mid).timeMs <= timeMs) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        Sample a = samples.get(low);
+        Sample b = samples.get(high);
+        double t = (double) (timeMs - a.timeMs) / (b.timeMs - a.timeMs);
+        return new Sample(timeMs, a.x + (b.x - a.x) * t, a.z + (b.z - a.z) * t,
+            a.velocityX + (b.velocityX - a.velocityX) * t, a.velocityZ + (b.velocityZ - a.velocityZ) * t, a.mode);
+    }
+
+    /**
+     * Straight line at constant speed
+     * @param speed Speed in blocks per second
+     * @param headingDegrees Heading in degrees, 0 = south (+Z), 90 = west (-X), like Minecraft yaw
+     * @param durationMs Length of the trace
+     * @param mode Movement mode of the trace
+     * @return The trace
+     */
+    public static MovementTrace straight(double speed, double headingDegrees, long durationMs, MovementMode mode) {
+        double dirX = -Math.sin(Math.toRadians(headingDegrees));
+        double dirZ = Math.cos(Math.toRadians(headingDegrees));
+        List<Sample> samples = new ArrayList<>();
+        for (long t = 0; t <= durationMs; t += 50) {
+            double seconds = t / 1000.0;
+            samples.add(new Sample(t, dirX * speed * seconds, dirZ * speed * seconds,
+                dirX * speed / 20.0, dirZ * speed / 20.0, mode));
+        }
+        return new MovementTrace("straight-" + mode.getConfigKey() + "-" + (int) speed, samples);
+    }
+
+    /**
+     * Wandering path that changes heading at random, like a player exploring on foot
+     * @param speed Speed in blocks per second
+     * @param turnEveryMs Average time between turns
+     * @param maxTurnDegrees Largest heading change per turn
+     * @param durationMs Length of the trace
+     * @param seed Random seed, the same seed always produces the same trace
+     * @param mode Movement mode of the trace
+     * @return The trace
+     */
+    public static MovementTrace wander(double speed, long turnEveryMs, double maxTurnDegrees, long durationMs,
+                                       long seed, MovementMode mode) {
+        Random random = new Random(seed);
+        List<Sample> samples = new ArrayList<>();
+        double heading = random.nextDouble() * 360;
+        double x = 0;
+        double z = 0;
+        long nextTurn = turnEveryMs;
+        for (long t = 0; t <= durationMs; t += 50) {
+            if (t >= nextTurn) {
+                heading += (random.nextDouble() * 2 - 1) * maxTurnDegrees;
+                nextTurn = t + (long) (turnEveryMs * (0.5 + random.nextDouble()));
+            }
+            double dirX = -Math.sin(Math.toRadians(heading));
+            double dirZ = Math.cos(Math.toRadians(heading));
+            samples.add(new Sample(t, x, z, dirX * speed / 20.0, dirZ * speed / 20.0, mode));
+            x += dirX * speed * 0.05;
+            z += dirZ * speed * 0.05;
+        }
+        return new MovementTrace("wander-" + mode.getConfigKey() + "-" + (int) speed + "-" + seed, samples);
+    }
+
+    /**
+     * Read a recorded trace from a CSV file with the columns time_ms,x,z
+     * Velocity is derived from consecutive samples
+     * @param path The CSV file
+     * @return The trace
+     * @throws IOException If the file cannot be read
+     */
+    public static MovementTrace fromCsv(Path path) throws IOException {
+        List<double[]> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length < 3 || parts[0].trim().isEmpty() || !Character.isDigit(parts[0].trim().charAt(0))) {
+                    continue; // Header or malformed line
+                }
+                rows.add(new double[] {Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()),
+                    Double.parseDouble(parts[2].trim())});
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IOException("No samples in " + path);
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        long start = (long) rows.get(0)[0];
+        for (int i = 0; i < rows.size(); i++) {
+            double[] row = rows.get(i);
+            double[] previous = rows.get(Math.max(0, i - 1));
+            double ticks = (row[0] - previous[0]) / 50.0;
+            double velocityX = ticks > 0 ? (row[1] - previous[1]) / ticks : 0;
+            double velocityZ = ticks > 0 ? (row[2] - previous[2]) / ticks : 0;
+            samples.add(new Sample((long) row[0] - start, row[1], row[2], velocityX, velocityZ, MovementMode.WALKING));
+        }
+        return new MovementTrace(path.getFileName().toString(), samples);
+    }
+
+    /**
+     * Read a binary movement log written by the in-game recorder, one trace per player
+     * Only the samples in each player's first world are kept, the simulator has no world changes
+     * @param path The movement log
+     * @return The traces, in the order the players first appear
+     * @throws IOException If the file cannot be read
+     */
+    public static List<MovementTrace> fromRecording(Path path) throws IOException {
+        Map<UUID, List<Sample>> samplesByPlayer = new LinkedHashMap<>();
+        Map<UUID, String> names = new LinkedHashMap<>();
+        Map<UUID, String> worlds = new LinkedHashMap<>();
+        Map<UUID, Long> starts = new LinkedHashMap<>();
+        try (MovementLogReader reader = new MovementLogReader(path)) {
+            MovementLogReader.RecordedSample next;
+            while ((next = reader.next()) != null) {
+                MovementLogReader.RecordedSample recorded = next;
+                UUID player = recorded.getPlayerId();
+                if (!recorded.getWorld().equals(worlds.computeIfAbsent(player, id -> recorded.getWorld()))) {
+                    continue;
+                }
+                names.putIfAbsent(player, recorded.getPlayerName());
+                long start = starts.computeIfAbsent(player, id -> recorded.getTimeMs());
+                samplesByPlayer.computeIfAbsent(player, id -> new ArrayList<>()).add(new Sample(recorded.getTimeMs() - start,
+                    recorded.getX(), recorded.getZ(), recorded.getVelocityX(), recorded.getVelocityZ(), recorded.getMode()));
+            }
+        }
+
+        List<MovementTrace> traces = new ArrayList<>();
+        for (Map.Entry<UUID, List<Sample>> entry : samplesByPlayer.entrySet()) {
+            traces.add(new MovementTrace(path.getFileName() + "-" + names.get(entry.getKey()), entry.getValue()));
+        }
+        return traces;
+    }
+
+    /**
+     * A single position sample, velocity is in blocks per tick like Bukkit's
+     */
+    public static class Sample {
+        final long timeMs;
+        final double x;
+        final double z;
+        final double velocityX;
+        final double velocityZ;
+        final MovementMode mode;
+
+        public Sample(long timeMs, double x, double z, double velocityX, double velocityZ, MovementMode mode) {
+            this.timeMs = timeMs;
+            this.x = x;
+            this.z = z;
+            this.velocityX = velocityX;
+            this.velocityZ = velocityZ;
+            this.mode = mode;
+        }
+
+        public long getTimeMs() {
+            return timeMs;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getZ() {
+            return z;
+        }
+
+        public double getVelocityX() {
+            return velocityX;
+        }
+
+        public double getVelocityZ() {
+            return velocityZ;
+        }
+
+        public MovementMode getMode() {
+            return mode;
+        }
+    }
+}
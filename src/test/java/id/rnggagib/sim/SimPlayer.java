@@ -0,0 +1,111 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.logic.LoaderPlayer;
+import id.rnggagib.logic.LoaderWorld;
+import id.rnggagib.logic.MovementMode;
+import org.bukkit.block.BlockFace;
+
+import java.util.UUID;
+
+/**
+ * A player following a movement trace
+ * Traces carry no view direction, so the player faces the way it moves and keeps its facing while standing still
+ */
+class SimPlayer implements LoaderPlayer {
+    private static final double Y = 64;
+
+    private final UUID uniqueId;
+    private final String name;
+    private final MovementTrace trace;
+    private final SimWorld world;
+    private MovementTrace.Sample sample;
+    private BlockFace facing = BlockFace.SOUTH;
+
+    SimPlayer(MovementTrace trace, SimWorld world) {
+        this.uniqueId = UUID.nameUUIDFromBytes(trace.getName().getBytes());
+        this.name = trace.getName();
+        this.trace = trace;
+        this.world = world;
+        moveTo(0);
+    }
+
+    MovementTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Move to where the trace is at a point in time
+     * @param timeMs The time in milliseconds
+     */
+    void moveTo(long timeMs) {
+        sample = trace.sampleAt(timeMs);
+        double velocityX = sample.getVelocityX();
+        double velocityZ = sample.getVelocityZ();
+        if (velocityX != 0 || velocityZ != 0) {
+            if (Math.abs(velocityX) > Math.abs(velocityZ)) {
+                facing = velocityX > 0 ? BlockFace.EAST : BlockFace.WEST;
+            } else {
+                facing = velocityZ > 0 ? BlockFace.SOUTH : BlockFace.NORTH;
+            }
+        }
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LoaderWorld getWorld() {
+        return world;
+    }
+
+    @Override
+    public double getX() {
+        return sample.getX();
+    }
+
+    @Override
+    public double getY() {
+        return Y;
+    }
+
+    @Override
+    public double getZ() {
+        return sample.getZ();
+    }
+
+    @Override
+    public double getVelocityX() {
+        return sample.getVelocityX();
+    }
+
+    @Override
+    public double getVelocityZ() {
+        return sample.getVelocityZ();
+    }
+
+    @Override
+    public BlockFace getFacing() {
+        return facing;
+    }
+
+    @Override
+    public MovementMode getMode() {
+        return sample.getMode();
+    }
+
+    @Override
+    public double[] getVehicleMotion() {
+        MovementMode mode = sample.getMode();
+        if (mode != MovementMode.MINECART && mode != MovementMode.BOAT && mode != MovementMode.HORSE) {
+            return null;
+        }
+        return new double[] {sample.getX(), Y, sample.getZ(), sample.getVelocityX(), sample.getVelocityZ()};
+    }
+}
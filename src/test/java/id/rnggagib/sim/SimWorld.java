@@ -0,0 +1,206 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.logic.LoadedChunkBitmap;
+import id.rnggagib.logic.LoaderWorld;
+import id.rnggagib.logic.RailTracer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fake world for the simulator, loads chunks after a latency drawn from the latency model
+ * Loads complete in {@link #advance}, which marks them in the loader's bitmap first like the chunk load event does
+ */
+class SimWorld implements LoaderWorld {
+    private final String name;
+    private final UUID uid;
+    private final LatencyModel latencyModel;
+    private final Random random;
+    private final double generatedFraction;
+    private final Set<Long> loaded = new HashSet<>();
+    private final Map<Long, Load> inFlight = new HashMap<>();
+    private final PriorityQueue<Load> completions = new PriorityQueue<>((a, b) -> a.completion != b.completion
+        ? Long.compare(a.completion, b.completion) : Long.compare(a.sequence, b.sequence));
+    // Chunks whose load the loader started, as opposed to the ones a player had to wait for
+    private final Set<Long> preloaded = new HashSet<>();
+    private LoadedChunkBitmap loadedChunks;
+    private long now;
+    private long sequence;
+
+    /**
+     * @param name The world name
+     * @param latencyModel The load latency distribution
+     * @param random The simulation's random source
+     * @param generatedFraction Fraction of chunks that already exist on disk (0-1)
+     */
+    SimWorld(String name, LatencyModel latencyModel, Random random, double generatedFraction) {
+        this.name = name;
+        this.uid = UUID.nameUUIDFromBytes(name.getBytes());
+        this.latencyModel = latencyModel;
+        this.random = random;
+        this.generatedFraction = generatedFraction;
+    }
+
+    static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Keep a loader's bitmap in step with this world from now on
+     * @param loadedChunks The bitmap
+     */
+    void track(LoadedChunkBitmap loadedChunks) {
+        this.loadedChunks = loadedChunks;
+        for (long key : loaded) {
+            loadedChunks.setLoaded(uid, (int) (key >> 32), (int) key);
+        }
+    }
+
+    boolean isChunkLoaded(int x, int z) {
+        return loaded.contains(key(x, z));
+    }
+
+    /**
+     * @return Chunks the loader loaded
+     */
+    Set<Long> getPreloaded() {
+        return preloaded;
+    }
+
+    /**
+     * Load a chunk a player needs right now, finishing a preload still in flight early
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return How long the player waits for the chunk in milliseconds
+     */
+    long loadForPlayer(int x, int z) {
+        long key = key(x, z);
+        if (loaded.contains(key)) {
+            return 0;
+        }
+        Load load = inFlight.get(key);
+        long wait = load != null ? load.completion - now : latencyModel.sample(random, !isChunkGenerated(x, z));
+        if (load != null) {
+            completions.remove(load);
+            complete(load);
+        } else {
+            markLoaded(x, z);
+        }
+        return wait;
+    }
+
+    /**
+     * Mark a chunk as loaded right away, used for the area around the starting position
+     */
+    void forceLoad(int x, int z) {
+        markLoaded(x, z);
+    }
+
+    /**
+     * Complete every load whose latency has elapsed
+     * @param time The current simulation time in milliseconds
+     */
+    void advance(long time) {
+        now = time;
+        while (!completions.isEmpty() && completions.peek().completion <= time) {
+            complete(completions.poll());
+        }
+    }
+
+    private void complete(Load load) {
+        inFlight.remove(key(load.x, load.z));
+        markLoaded(load.x, load.z);
+        load.future.complete(null);
+    }
+
+    private void markLoaded(int x, int z) {
+        loaded.add(key(x, z));
+        if (loadedChunks != null) {
+            loadedChunks.setLoaded(uid, x, z);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public UUID getUID() {
+        return uid;
+    }
+
+    @Override
+    public CompletableFuture<?> loadChunkAsync(int x, int z) {
+        long key = key(x, z);
+        if (loaded.contains(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Load load = inFlight.get(key);
+        if (load == null) {
+            load = new Load(x, z, now + latencyModel.sample(random, !isChunkGenerated(x, z)), sequence++);
+            inFlight.put(key, load);
+            completions.add(load);
+            preloaded.add(key);
+        }
+        return load.future;
+    }
+
+    /**
+     * Whether a chunk already exists on disk, fixed per coordinate so runs are comparable
+     */
+    @Override
+    public boolean isChunkGenerated(int x, int z) {
+        if (loaded.contains(key(x, z))) {
+            return true;
+        }
+        long hash = key(x, z) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 31;
+        return (hash & 0xFFFF) < generatedFraction * 0x10000;
+    }
+
+    @Override
+    public int[] getSpawnChunk() {
+        return new int[] {0, 0};
+    }
+
+    @Override
+    public List<int[]> getLoadedChunks() {
+        List<int[]> chunks = new ArrayList<>(loaded.size());
+        for (long key : loaded) {
+            chunks.add(new int[] {(int) (key >> 32), (int) key});
+        }
+        return chunks;
+    }
+
+    /**
+     * The fake world has no blocks, so minecarts fall back to the cone like a cart off the rails
+     */
+    @Override
+    public RailTracer.TraceResult traceRail(int x, int y, int z, double velocityX, double velocityZ, int maxBlocks) {
+        return null;
+    }
+
+    private static class Load {
+        private final int x;
+        private final int z;
+        private final long completion;
+        private final long sequence;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Load(int x, int z, long completion, long sequence) {
+            this.x = x;
+            this.z = z;
+            this.completion = completion;
+            this.sequence = sequence;
+        }
+    }
+}
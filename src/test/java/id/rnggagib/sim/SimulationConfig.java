@@ -0,0 +1,167 @@
+package id.rnggagib.sim;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings of one simulation run
+ * Loader settings use the config.yml keys and are read by the plugin's own LoaderConfig,
+ * keys that are not set keep the plugin's defaults
+ */
+class SimulationConfig {
+    private final String label;
+    private final Map<String, Object> settings;
+    private final int viewDistance;
+    private final boolean preloading;
+    private final LatencyModel latencyModel;
+    private final double generatedFraction;
+    private final long seed;
+
+    private SimulationConfig(Builder builder) {
+        this.label = builder.label;
+        this.settings = new LinkedHashMap<>(builder.settings);
+        this.viewDistance = builder.viewDistance;
+        this.preloading = builder.preloading;
+        this.latencyModel = builder.latencyModel;
+        this.generatedFraction = builder.generatedFraction;
+        this.seed = builder.seed;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Short description of the settings for the report
+     */
+    String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return A configuration root holding the loader settings, like the plugin's config.yml
+     */
+    ConfigurationSection toConfiguration() {
+        MemoryConfiguration config = new MemoryConfiguration();
+        settings.forEach(config::set);
+        return config;
+    }
+
+    int getViewDistance() {
+        return viewDistance;
+    }
+
+    /**
+     * @return false for the baseline run, in which the loader is never asked to plan
+     */
+    boolean isPreloading() {
+        return preloading;
+    }
+
+    LatencyModel getLatencyModel() {
+        return latencyModel;
+    }
+
+    double getGeneratedFraction() {
+        return generatedFraction;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Builder with the plugin's default settings
+     */
+    static class Builder {
+        private final Map<String, Object> settings = new LinkedHashMap<>();
+        private String label = "defaults";
+        private int viewDistance = 10;
+        private boolean preloading = true;
+        private LatencyModel latencyModel = LatencyModel.defaults();
+        private double generatedFraction = 0.0;
+        private long seed = 1;
+
+        Builder() {
+            // The governor watches the heap of the JVM running the tests, which says nothing about a server
+            settings.put("memory-governor.enabled", false);
+        }
+
+        /**
+         * Set any loader setting
+         * @param path The config.yml key
+         * @param value The value
+         */
+        Builder set(String path, Object value) {
+            settings.put(path, value);
+            return this;
+        }
+
+        /**
+         * One frontier for every movement mode, like config.yml with movement-profiles disabled
+         */
+        Builder frontier(int minDistance, int maxDistance, int width, double spread) {
+            settings.put("movement-profiles.enabled", false);
+            settings.put("frontier-distance.min", minDistance);
+            settings.put("frontier-distance.max", maxDistance);
+            settings.put("frontier-width", width);
+            settings.put("advanced.cone-spread-factor", spread);
+            label = String.format("d%d-%d w%d s%.1f", minDistance, maxDistance, width, spread);
+            return this;
+        }
+
+        Builder chunksPerPass(int chunksPerPass) {
+            settings.put("max-chunks-per-tick", chunksPerPass);
+            return this;
+        }
+
+        /**
+         * Queue aging, like queue-aging in config.yml
+         * @param intervalMillis Wait time per level of boost, 0 disables aging
+         * @param maxBoost Maximum number of levels an entry can be boosted
+         */
+        Builder queueAging(int intervalMillis, int maxBoost) {
+            settings.put("queue-aging.interval-ms", intervalMillis);
+            settings.put("queue-aging.max-boost", maxBoost);
+            return this;
+        }
+
+        Builder viewDistance(int viewDistance) {
+            this.viewDistance = viewDistance;
+            return this;
+        }
+
+        Builder preloading(boolean preloading) {
+            this.preloading = preloading;
+            if (!preloading) {
+                label = "no preloading";
+            }
+            return this;
+        }
+
+        Builder latencyModel(LatencyModel latencyModel) {
+            this.latencyModel = latencyModel;
+            return this;
+        }
+
+        /**
+         * @param generatedFraction Fraction of chunks that already exist on disk (0-1)
+         */
+        Builder generatedFraction(double generatedFraction) {
+            this.generatedFraction = generatedFraction;
+            return this;
+        }
+
+        Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        SimulationConfig build() {
+            return new SimulationConfig(this);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package id.rnggagib.sim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of one simulation run
+ */
+class SimulationReport {
+    private final String traceName;
+    private final String configLabel;
+    private final long hits;
+    private final long misses;
+    private final long preloads;
+    private final long wastedLoads;
+    private final List<Long> waits;
+    private final long staleDrops;
+    private final int peakQueue;
+    private final double msptCost;
+
+    SimulationReport(String traceName, String configLabel, long hits, long misses, long preloads, long wastedLoads,
+                     List<Long> waits, long staleDrops, int peakQueue, double msptCost) {
+        this.traceName = traceName;
+        this.configLabel = configLabel;
+        this.hits = hits;
+        this.misses = misses;
+        this.preloads = preloads;
+        this.wastedLoads = wastedLoads;
+        List<Long> sorted = new ArrayList<>(waits);
+        Collections.sort(sorted);
+        this.waits = Collections.unmodifiableList(sorted);
+        this.staleDrops = staleDrops;
+        this.peakQueue = peakQueue;
+        this.msptCost = msptCost;
+    }
+
+    /**
+     * @return Share of chunks that were already loaded when they entered a player's view
+     */
+    double getHitRate() {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 1.0;
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Chunks the loader loaded
+     */
+    long getPreloads() {
+        return preloads;
+    }
+
+    /**
+     * @return Chunks preloaded but never seen by a player
+     */
+    long getWastedLoads() {
+        return wastedLoads;
+    }
+
+    /**
+     * Get a percentile of the time players waited for chunks that were not preloaded
+     * @param percentile The percentile (0-100)
+     * @return The wait in milliseconds
+     */
+    long getWaitPercentile(double percentile) {
+        if (waits.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * waits.size()) - 1;
+        return waits.get(Math.max(0, Math.min(index, waits.size() - 1)));
+    }
+
+    List<Long> getWaits() {
+        return waits;
+    }
+
+    /**
+     * @return Queued chunks the loader dropped because no player needed them any more
+     */
+    long getStaleDrops() {
+        return staleDrops;
+    }
+
+    int getPeakQueue() {
+        return peakQueue;
+    }
+
+    /**
+     * @return Measured main thread time of planning, main thread tasks and load callbacks, in milliseconds per tick
+     */
+    double getMsptCost() {
+        return msptCost;
+    }
+
+    /**
+     * @return Column headers matching {@link #toRow()}
+     */
+    static String header() {
+        return String.format("%-28s %-16s %8s %8s %8s %8s %8s %6s %6s %8s",
+            "trace", "config", "hitrate", "preload", "wasted", "p99wait", "maxwait", "stale", "peakq", "mspt");
+    }
+
+    /**
+     * @return One line summary of the run
+     */
+    String toRow() {
+        return String.format("%-28s %-16s %7.1f%% %8d %8d %6dms %6dms %6d %6d %8.4f",
+            traceName, configLabel, getHitRate() * 100, preloads, wastedLoads,
+            getWaitPercentile(99), getWaitPercentile(100), staleDrops, peakQueue, msptCost);
+    }
+}